@@ -0,0 +1,103 @@
+package app;
+
+import controllers.MainViewController;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import util.D;
+import util.FxFrameBridge;
+import util.LatencyHistogram;
+import util.LoadProfile;
+import util.RenderScheduler;
+import util.SineSignalGenerator;
+
+/**
+ * Drives the full generator -> FX bridge -> plot model path with a {@link LoadProfile} for its duration,
+ * then prints ingestion throughput, drops and end-to-end latency and exits the application.
+ * Latency is measured from the production of a frame's oldest sample until the plot model consumed the frame.
+ * Frame time is the time {@link RenderScheduler} spent applying updates per pulse. Series data changes and layout
+ * passes are counted per update, that is per frame handed to the plot model.
+ */
+public class LoadProfileRunner {
+
+    private final LoadProfile profile;
+    private final MainViewController controller;
+    private final SineSignalGenerator generator;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram frameTime;
+
+    private long startNanos;
+    private long startDeliveredSamples;
+    private long startDrains, startSeriesDataChanges, startLayoutPasses;
+    private boolean finished;
+
+    public LoadProfileRunner(LoadProfile profile, MainViewController controller) {
+        this.profile = profile;
+        this.controller = controller;
+        this.generator = new SineSignalGenerator();
+        this.latency = new LatencyHistogram();
+        this.frameTime = new LatencyHistogram();
+    }
+
+    /**
+     * Replaces controller's source with the profile's generator and starts it, must be called on FX thread
+     */
+    public void start() {
+        D.info(LoadProfileRunner.this, "Running load profile: " + profile);
+
+        profile.applyTo(generator);
+        generator.setFrameSwap(true);
+        controller.setSignalSource(generator);
+
+        final FxFrameBridge bridge = controller.getFrameBridge();
+        bridge.setLatencyHistogram(latency);
+        RenderScheduler.getInstance().setFrameTimeHistogram(frameTime);
+        startDeliveredSamples = bridge.getDeliveredSamples();
+        startDrains = bridge.getDrains();
+        startSeriesDataChanges = controller.getChart().getSeriesDataChanges();
+        startLayoutPasses = controller.getChart().getLayoutPasses();
+        startNanos = System.nanoTime();
+        generator.start();
+
+        PauseTransition timeout = new PauseTransition(Duration.seconds(profile.getDuration()));
+        timeout.setOnFinished(e -> {
+            finish();
+            Platform.exit();
+        });
+        timeout.play();
+    }
+
+    /**
+     * Stops the load and prints the report, does nothing if already finished. Must be called on FX thread.
+     */
+    public void finish() {
+        if (finished) return;
+        finished = true;
+
+        generator.stop();
+        final FxFrameBridge bridge = controller.getFrameBridge();
+        bridge.setLatencyHistogram(null);
+        RenderScheduler.getInstance().setFrameTimeHistogram(null);
+
+        final double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        final double ingested = (bridge.getDeliveredSamples() - startDeliveredSamples) / elapsed;
+        System.out.println("Load profile: " + profile);
+        System.out.printf("Elapsed: %.1f s%n", elapsed);
+        System.out.printf("Ingested: %.0f samples/s per series, %.0f samples/s total (requested %.0f per series)%n",
+                ingested, ingested * profile.getChannels(), profile.getRate());
+        System.out.printf("Dropped: %d frames by source, %d samples skipped by source, %d samples by FX bridge%n",
+                generator.getOverruns(), generator.getSkippedSamples(), bridge.getDroppedSamples());
+        System.out.printf("Coalesced frames: %d, max queue depth: %d%n",
+                bridge.getCoalescedFrames(), bridge.getMaxQueueDepth());
+        System.out.printf("Latency (%d frames): p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                latency.getCount(), latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6, latency.getMax() / 1e6);
+        System.out.printf("Frame time (%d pulses): p50 %.2f ms, p99 %.2f ms, max %.2f ms, deferred tasks: %d%n",
+                frameTime.getCount(), frameTime.getPercentile(50) / 1e6, frameTime.getPercentile(99) / 1e6,
+                frameTime.getMax() / 1e6, RenderScheduler.getInstance().getDeferredTasks());
+        final long updates = Math.max(1, bridge.getDrains() - startDrains);
+        final long changes = controller.getChart().getSeriesDataChanges() - startSeriesDataChanges;
+        final long layouts = controller.getChart().getLayoutPasses() - startLayoutPasses;
+        System.out.printf("Series data changes: %d (%.2f per update), layout passes: %d (%.2f per update)%n",
+                changes, (double) changes / updates, layouts, (double) layouts / updates);
+    }
+}
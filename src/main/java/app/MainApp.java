@@ -1,24 +1,100 @@
 package app;
 
+import controllers.MainViewController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import plot.RenderBackend;
+import util.D;
+import util.LoadProfile;
+import util.LogLevel;
+import util.RenderScheduler;
+import util.ReplaySignalSource;
+import util.SampleRecorder;
+
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 
 public class MainApp extends Application {
 
+    private static final String LOAD_PREFIX = "load.";
+
+    private LoadProfileRunner loadProfileRunner;
+
     public static void main(String[] args) {
         launch(args);
     }
 
     @Override
     public void start(Stage primaryStage) throws IOException {
-        Parent root = FXMLLoader.load(getClass().getResource("/view/MainView.fxml"));
+        // --logLevel=debug|info|warn|error|off sets lowest level of printed messages
+        final Map<String, String> params = getParameters().getNamed();
+        if (params.containsKey("logLevel")) {
+            D.setLevel(LogLevel.valueOf(params.get("logLevel").toUpperCase()));
+        }
+
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/MainView.fxml"));
+        Parent root = loader.load();
+        MainViewController controller = loader.getController();
+
+        // --replay=<file> [--replayRate=<multiplier>|max] replays recorded samples instead of generating them
+        if (params.containsKey("replay")) {
+            ReplaySignalSource replay = new ReplaySignalSource();
+            replay.setFile(Paths.get(params.get("replay")));
+            String rate = params.getOrDefault("replayRate", "1");
+            if ("max".equalsIgnoreCase(rate)) {
+                replay.setMaxSpeed(true);
+            } else {
+                replay.setRateMultiplier(Double.parseDouble(rate));
+            }
+            replay.setFrameSwap(true);
+            controller.setSignalSource(replay);
+        }
+        // --renderBackend=nodes|canvas selects how the chart draws series
+        if (params.containsKey("renderBackend")) {
+            controller.setRenderBackend(RenderBackend.valueOf(params.get("renderBackend").toUpperCase()));
+        }
+        // --frameBudget=<ms> limits time per pulse before non-essential render work is deferred
+        if (params.containsKey("frameBudget")) {
+            RenderScheduler.getInstance().setFrameBudget(Double.parseDouble(params.get("frameBudget")));
+        }
+        // --lodSettleDelay=<ms> --lodCoarseFactor=<n> set how series are coarsened while panning or zooming
+        if (params.containsKey("lodSettleDelay") || params.containsKey("lodCoarseFactor")) {
+            controller.setLevelOfDetail(Double.parseDouble(params.getOrDefault("lodSettleDelay", "200")),
+                    Integer.parseInt(params.getOrDefault("lodCoarseFactor", "4")));
+        }
+        // --record=<file> records plotted samples
+        if (params.containsKey("record")) {
+            controller.setRecorder(new SampleRecorder(Paths.get(params.get("record"))));
+        }
+
         primaryStage.setTitle("Rej006_PlotPart");
         primaryStage.setScene(new Scene(root));
         primaryStage.show();
+
+        // --loadProfile=<file>|"" [--load.<key>=<value>...] runs synthetic load, reports and exits, see LoadProfile
+        if (params.containsKey("loadProfile")) {
+            Map<String, String> overrides = new HashMap<>();
+            params.forEach((key, value) -> {
+                if (key.startsWith(LOAD_PREFIX)) overrides.put(key.substring(LOAD_PREFIX.length()), value);
+            });
+            String file = params.get("loadProfile");
+            LoadProfile profile = LoadProfile.load(file.isEmpty() ? null : Paths.get(file), overrides);
+            loadProfileRunner = new LoadProfileRunner(profile, controller);
+            loadProfileRunner.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Report even when window was closed before profile's duration elapsed
+        if (loadProfileRunner != null) {
+            loadProfileRunner.finish();
+        }
     }
 }
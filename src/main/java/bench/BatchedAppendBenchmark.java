@@ -0,0 +1,69 @@
+package bench;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+import plot.DataPointList;
+import plot.PointList;
+
+/**
+ * Counts change events series data lists fire when plot model updates are appended point by point and in a single
+ * batch per channel, and measures the time taken. Stock chart handles each change event separately and requests
+ * layout for each of them, so the event count is also the number of layout requests.
+ * Run as: java bench.BatchedAppendBenchmark [channels] [samplesPerUpdate] [updates]
+ */
+public class BatchedAppendBenchmark {
+
+    private static long events, added;
+
+    public static void main(String[] args) {
+        final int channels = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        final int samples = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int updates = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        System.out.println("Channels: " + channels + ", samples per update: " + samples + ", updates: " + updates);
+
+        final double[] xs = new double[samples], ys = new double[samples];
+        for (int run = 0; run < 3; run++) {
+            for (boolean batched : new boolean[]{false, true}) {
+                final PointList[] series = newSeries(channels);
+                events = added = 0;
+                final long start = System.nanoTime();
+                for (int u = 0; u < updates; u++) {
+                    for (int c = 0; c < channels; c++) {
+                        for (int k = 0; k < samples; k++) {
+                            xs[k] = (u * samples + k) * 0.005;
+                            ys[k] = Math.sin(xs[k] + c);
+                        }
+                        if (batched) {
+                            series[c].addAll(xs, ys, samples);
+                        } else {
+                            for (int k = 0; k < samples; k++) {
+                                series[c].add(xs[k], ys[k]);
+                            }
+                        }
+                    }
+                }
+                final double millis = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%-9s: %8.1f change events per update, %d points, %7.1f ms%n",
+                        batched ? "batched" : "per point", (double) events / updates, added, millis);
+            }
+        }
+    }
+
+    private static PointList[] newSeries(int channels) {
+        final PointList[] series = new PointList[channels];
+        for (int c = 0; c < channels; c++) {
+            final ObservableList<XYChart.Data<Number, Number>> data = FXCollections.observableArrayList();
+            // Walks the change like series' own listener does
+            data.addListener((ListChangeListener<XYChart.Data<Number, Number>>) change -> {
+                events++;
+                while (change.next()) {
+                    added += change.getAddedSize();
+                }
+            });
+            series[c] = new DataPointList(data);
+        }
+        return series;
+    }
+}
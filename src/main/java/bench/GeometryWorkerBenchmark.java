@@ -0,0 +1,67 @@
+package bench;
+
+import plot.Decimation;
+import plot.render.GeometryWorker;
+import plot.render.PrimitivePointList;
+import plot.render.SeriesGeometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Measures how long {@link GeometryWorker} takes to prepare a frame and how much of it stays on the requesting
+ * (FX) thread, which only requests and takes geometry, at full and at coarse (panning) level of detail.
+ * Draw calls need FX toolkit and are not measured.
+ * Run as: java bench.GeometryWorkerBenchmark [series] [visiblePoints] [frames] [coarseFactor]
+ */
+public class GeometryWorkerBenchmark {
+
+    private static final double WIDTH = 1600, HEIGHT = 900;
+
+    public static void main(String[] args) throws InterruptedException {
+        final int numberOfSeries = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final int visible = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        final int frames = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        final int coarseFactor = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        final List<PrimitivePointList> series = new ArrayList<>();
+        for (int s = 0; s < numberOfSeries; s++) {
+            PrimitivePointList points = new PrimitivePointList();
+            for (int i = 0; i < visible; i++) {
+                points.add(i * 0.001, Math.sin(i * 0.01 + s) * 5);
+            }
+            series.add(points);
+        }
+        final double xScale = WIDTH / (visible * 0.001), yScale = HEIGHT / -20.0;
+        System.out.println("Series: " + numberOfSeries + ", visible points each: " + visible);
+
+        for (int columnWidth : new int[]{1, coarseFactor}) {
+            for (Decimation decimation : new Decimation[]{Decimation.M4, Decimation.NONE}) {
+                final Semaphore ready = new Semaphore(0);
+                final GeometryWorker worker = new GeometryWorker(ready::release);
+                long fxNanos = 0, maxFxNanos = 0, points = 0;
+                final long start = System.nanoTime();
+                for (int f = 0; f < frames; f++) {
+                    long t = System.nanoTime();
+                    worker.request(series, decimation, columnWidth, WIDTH, HEIGHT, 0, xScale, HEIGHT / 2, yScale);
+                    long fx = System.nanoTime() - t;
+
+                    ready.acquire();
+                    t = System.nanoTime();
+                    SeriesGeometry geometry = worker.take();
+                    fx += System.nanoTime() - t;
+
+                    for (int s = 0; s < geometry.getNumberOfSeries(); s++) {
+                        points += geometry.size(s);
+                    }
+                    fxNanos += fx;
+                    maxFxNanos = Math.max(maxFxNanos, fx);
+                }
+                final double frameMs = (System.nanoTime() - start) / 1e6 / frames;
+                System.out.printf("%-4s x%d: %7.2f ms/frame on worker, FX thread %.3f ms/frame (max %.3f), %d points drawn per frame%n",
+                        decimation, columnWidth, frameMs, fxNanos / 1e6 / frames, maxFxNanos / 1e6, points / frames);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import plot.render.LttbDecimator;
+import plot.render.PrimitivePointList;
+
+import java.util.SplittableRandom;
+
+/**
+ * Measures how many appended points per second {@link LttbDecimator} reduces to a point budget, compared with
+ * running full LTTB over the whole series after every appended block.
+ * Run as: java bench.LttbBenchmark [points] [blockSize] [budget]
+ */
+public class LttbBenchmark {
+
+    public static void main(String[] args) {
+        final int points = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        final int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final int budget = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+
+        final double[] xs = new double[points], ys = new double[points];
+        final SplittableRandom random = new SplittableRandom(123);
+        for (int i = 0; i < points; i++) {
+            xs[i] = i * 0.005;
+            ys[i] = Math.sin(i * 0.001) + 0.2 * (random.nextDouble() - 0.5);
+        }
+        System.out.println("Points: " + points + ", block: " + blockSize + ", budget: " + budget);
+
+        for (int run = 0; run < 3; run++) {
+            final PrimitivePointList output = new PrimitivePointList();
+            final LttbDecimator decimator = new LttbDecimator(output, budget);
+            final double[] bx = new double[blockSize], by = new double[blockSize];
+            long start = System.nanoTime();
+            for (int i = 0; i < points; i += blockSize) {
+                final int count = Math.min(blockSize, points - i);
+                System.arraycopy(xs, i, bx, 0, count);
+                System.arraycopy(ys, i, by, 0, count);
+                decimator.addAll(bx, by, count);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("incremental: %8.1f Mpoints/s, output %d points, bucket %d%n",
+                    points / seconds / 1e6, output.size(), decimator.getBucketSize());
+        }
+
+        // Full recompute touches every point received so far per block, so only a prefix is measured
+        final int fullPoints = Math.min(points, 200 * blockSize);
+        final double[] outX = new double[budget], outY = new double[budget];
+        long start = System.nanoTime();
+        int reduced = 0;
+        for (int n = blockSize; n <= fullPoints; n += blockSize) {
+            reduced = LttbDecimator.reduce(xs, ys, n, budget, outX, outY);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("full per block (first %d points): %8.3f Mpoints/s, output %d points%n",
+                fullPoints, fullPoints / seconds / 1e6, reduced);
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.chart.XYChart;
+import plot.models.SeriesStore;
+import plot.render.PrimitivePointList;
+import util.SampleFrame;
+
+/**
+ * Measures heap taken per sample of a single channel when kept as chart series data, as primitive points and in
+ * {@link SeriesStore}. Each storage is filled alone and measured as difference of used heap after garbage collection.
+ * Run as: java bench.SeriesStoreMemoryBenchmark [samples]
+ */
+public class SeriesStoreMemoryBenchmark {
+
+    public static void main(String[] args) {
+        final int samples = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final double delta = 0.005;
+        System.out.println("Samples: " + samples);
+
+        long before = usedHeap();
+        ObservableList<XYChart.Data<Number, Number>> data = FXCollections.observableArrayList();
+        for (int i = 0; i < samples; i++) {
+            data.add(new XYChart.Data<>(i * delta, Math.sin(i * 0.001)));
+        }
+        report("XYChart.Data", usedHeap() - before, samples, data.size());
+        data = null;
+
+        before = usedHeap();
+        PrimitivePointList points = new PrimitivePointList();
+        for (int i = 0; i < samples; i++) {
+            points.add(i * delta, Math.sin(i * 0.001));
+        }
+        report("PrimitivePointList", usedHeap() - before, samples, points.size());
+        points = null;
+
+        before = usedHeap();
+        final SampleFrame frame = new SampleFrame(1, 1000);
+        final SeriesStore store = new SeriesStore(1, samples, true, 0, delta);
+        for (int i = 0; i < samples; i += frame.getCapacity()) {
+            frame.clear();
+            for (int k = 0; k < frame.getCapacity(); k++) {
+                frame.set(0, Math.sin((i + k) * 0.001));
+                frame.commit();
+            }
+            store.append(frame, 0, Math.min(frame.size(), samples - i));
+        }
+        report("SeriesStore", usedHeap() - before, samples, store.size());
+    }
+
+    private static void report(String name, long bytes, int samples, int size) {
+        System.out.printf("%-18s: %6.1f bytes/sample (%d samples)%n", name, (double) bytes / samples, size);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,82 @@
+package bench;
+
+import util.SineSynthesizer;
+
+/**
+ * Compares {@link SineSynthesizer} with the Math.sin per sample path used by the generator before.
+ * Run as: java bench.SineSynthesisBenchmark [channels] [blockSize] [seconds]
+ */
+public class SineSynthesisBenchmark {
+
+    private static final double TWO_PI = Math.PI * 2.0;
+    private static final double AMPLITUDE = 3.0;
+
+    public static void main(String[] args) {
+        final int channels = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        final int blockSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 3.0;
+
+        final double w = TWO_PI * 0.01 / 3215.0;
+        final double[] offsets = new double[channels];
+        for (int i = 0; i < channels; i++) {
+            offsets[i] = i * TWO_PI / (channels + 1);
+        }
+        final double[][] out = new double[channels][blockSize];
+
+        System.out.println("Channels: " + channels + ", block: " + blockSize + " samples");
+        for (int round = 0; round < 2; round++) {
+            String prefix = round == 0 ? "[warm-up] " : "";
+            System.out.printf("%sMath.sin : %8.1f Msamples/s%n", prefix, runMathSin(out, w, offsets, seconds) / 1e6);
+            System.out.printf("%srotation : %8.1f Msamples/s%n", prefix, runRotation(out, w, offsets, seconds) / 1e6);
+        }
+        System.out.printf("Max abs error after %d samples: %.3e%n", 10_000_000L, maxError(w, offsets, 10_000_000L, blockSize));
+    }
+
+    private static double runMathSin(double[][] out, double w, double[] offsets, double seconds) {
+        final long end = System.nanoTime() + (long) (seconds * 1e9);
+        final long start = System.nanoTime();
+        long idx = 0;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < out.length; i++) {
+                final double[] y = out[i];
+                for (int k = 0; k < y.length; k++) {
+                    y[k] = AMPLITUDE * Math.sin(w * (idx + k) + offsets[i]);
+                }
+            }
+            idx += out[0].length;
+        }
+        return idx * (double) out.length / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double runRotation(double[][] out, double w, double[] offsets, double seconds) {
+        final SineSynthesizer synthesizer = new SineSynthesizer(AMPLITUDE);
+        final long end = System.nanoTime() + (long) (seconds * 1e9);
+        final long start = System.nanoTime();
+        long idx = 0;
+        while (System.nanoTime() < end) {
+            synthesizer.prepare(w, offsets, idx);
+            for (int i = 0; i < out.length; i++) {
+                synthesizer.fill(i, out[i], 0, out[i].length);
+            }
+            synthesizer.advance(out[0].length);
+            idx += out[0].length;
+        }
+        return idx * (double) out.length / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double maxError(double w, double[] offsets, long samples, int blockSize) {
+        final SineSynthesizer synthesizer = new SineSynthesizer(AMPLITUDE);
+        final double[] y = new double[blockSize];
+        final double[] channelOffset = {offsets[offsets.length - 1]};
+        double maxError = 0;
+        for (long idx = 0; idx < samples; idx += blockSize) {
+            synthesizer.prepare(w, channelOffset, idx);
+            synthesizer.fill(0, y, 0, blockSize);
+            synthesizer.advance(blockSize);
+            for (int k = 0; k < blockSize; k++) {
+                maxError = Math.max(maxError, Math.abs(y[k] - AMPLITUDE * Math.sin(w * (idx + k) + channelOffset[0])));
+            }
+        }
+        return maxError;
+    }
+}
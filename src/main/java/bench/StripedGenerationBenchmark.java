@@ -0,0 +1,44 @@
+package bench;
+
+import util.PacingMode;
+import util.SampleFrame;
+import util.SineSignalGenerator;
+
+/**
+ * Measures how {@link SineSignalGenerator} throughput scales with the number of channel stripes.
+ * Generator is asked for more samples than it can produce, so delivered rate is bound by generation itself.
+ * Run as: java bench.StripedGenerationBenchmark [channels] [sampleRate] [seconds]
+ */
+public class StripedGenerationBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        final int channels = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        final double sampleRate = args.length > 1 ? Double.parseDouble(args[1]) : 200_000.0;
+        final double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 3.0;
+        final int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("Channels: " + channels + ", requested: " + sampleRate + " samples/s, cores: " + cores);
+        for (int stripes = 1; stripes <= Math.max(2, cores); stripes *= 2) {
+            final SineSignalGenerator generator = new SineSignalGenerator();
+            generator.setNumberOfSeries(channels);
+            generator.setUpdateInterval(20);
+            generator.setPacingMode(PacingMode.CATCH_UP);
+            generator.setSampleRate(sampleRate);
+            generator.setStripes(stripes);
+            generator.setFrameSwap(true);
+            // Consume without copying so that only generation is measured
+            generator.dataReadyProperty().addListener((o, ov, nv) -> {
+                if (!nv) return;
+                SampleFrame frame = generator.takeFrame();
+                generator.recycle(frame);
+            });
+
+            generator.start();
+            Thread.sleep((long) (seconds * 1000));
+            final double rate = generator.getAchievedRate();
+            generator.stop();
+            System.out.printf("stripes: %3d -> %8.1f Msamples/s (%8.0f samples/s per channel)%n",
+                    stripes, rate * channels / 1e6, rate);
+        }
+    }
+}
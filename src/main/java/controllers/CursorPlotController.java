@@ -11,6 +11,7 @@ import javafx.scene.shape.Line;
 import javafx.stage.Stage;
 import model.CursorModel;
 import util.D;
+import util.RenderScheduler;
 
 
 public class CursorPlotController extends Line {
@@ -41,9 +42,9 @@ public class CursorPlotController extends Line {
         this.axis = axis;
         this.pixelPosition = new SimpleObjectProperty<>();
 
-        ChangeListener updatePositionListener = (o, ov, nv) -> Platform.runLater(() -> {
+        ChangeListener updatePositionListener = (o, ov, nv) -> RenderScheduler.getInstance().schedule(this, () -> {
             setPixelPosition(this.axis.getDisplayPosition(this.data.getPosition()));
-            D.info(CursorPlotController.this, "Something forced update, updating PIXEL position to: " + getPixelPosition());
+            D.debug(CursorPlotController.this, "Something forced update, updating PIXEL position to: {}", getPixelPosition());
         });
 
         this.axis.getScene().widthProperty().addListener(updatePositionListener);
@@ -65,11 +66,11 @@ public class CursorPlotController extends Line {
 
         this.pixelPosition.addListener((o, ov, nv) -> {
             this.data.setPosition(this.axis.getValueForDisplay(nv.doubleValue()));
-            D.info(CursorPlotController.this, "PIXEL position changed to: " + nv + " updating DATA position to: " + this.data.getPosition());
+            D.debug(CursorPlotController.this, "PIXEL position changed to: {} updating DATA position to: {}", nv, this.data.getPosition());
         });
         this.data.positionProperty().addListener((o, ov, nv) -> {
             setPixelPosition(this.axis.getDisplayPosition(nv));
-            D.info(CursorPlotController.this, "DATA position changed to: " + nv + ", updating PIXEL position to: " + getPixelPosition());
+            D.debug(CursorPlotController.this, "DATA position changed to: {}, updating PIXEL position to: {}", nv, getPixelPosition());
         });
 
         this.data.colorProperty().addListener((o, ov, nv) -> setStroke(nv));
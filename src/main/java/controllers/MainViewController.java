@@ -1,6 +1,7 @@
 package controllers;
 
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -18,7 +19,11 @@ import plot.*;
 import plot.models.*;
 import util.CursorManager;
 import util.D;
+import util.FxFrameBridge;
 import util.ProgressListCell;
+import util.SampleRecorder;
+import util.SignalSource;
+import util.SignalSourceBase;
 import util.SineSignalGenerator;
 import util.listeners.PlotModelChangeListener;
 
@@ -63,11 +68,36 @@ public class MainViewController {
     private final List<CursorViewController> cursors;
     private final SineSignalGenerator generator;
     private final ProgressBar prgComboFill;
+    /**
+     * Source of plotted data, generator unless replaced by {@link #setSignalSource(SignalSource)}
+     */
+    private SignalSource source;
+    /**
+     * Coalesces data ready pings of the source into at most one pending FX task
+     */
+    private final FxFrameBridge frameBridge;
+
+    private final ChangeListener<Number> sampleIntervalListener;
+    private final ChangeListener<Number> numberOfSeriesListener;
+    private final ChangeListener<Boolean> dataReadyListener;
 
     public MainViewController() {
         cursors = new ArrayList<>();
         generator = new SineSignalGenerator();
         prgComboFill = new ProgressBar(0.0);
+        source = generator;
+        frameBridge = new FxFrameBridge(frame -> chart.getPlotModel().addData(frame));
+        sampleIntervalListener = (o, ov, nv) -> chart.getPlotModel().setDelta(nv.doubleValue());
+        numberOfSeriesListener = (o, ov, nv) -> {
+            resetChartSeries(nv.intValue());
+            // Models keep points of the series they were filling, these were just replaced
+            chart.getPlotModel().reset();
+        };
+        dataReadyListener = (o, wasReady, isReady) -> {
+            if (isReady) {
+                frameBridge.offer(source);
+            }
+        };
     }
 
     @FXML
@@ -87,7 +117,7 @@ public class MainViewController {
             if (nv == PlotMode.SCREEN) tmp = new ScreenModeModel(chart);
             if (nv == PlotMode.FREE) tmp = new FreeModeModel(chart, ov != null);
             final PlotModeModelBase model = tmp;
-            model.setDelta(generator.getDelta() / 1000.0);
+            model.setDelta(source.getSampleInterval());
             chart.setPlotModel(model);
         });
         cbPlotMode.getSelectionModel().select(PlotMode.FREE);
@@ -96,7 +126,7 @@ public class MainViewController {
         CursorManager.getInstance().unmodifiableCursorPool().addListener((ListChangeListener<? super CursorModel>) change -> {
             while (change.next()) {
                 if (change.wasRemoved()) {
-                    D.info(MainViewController.this, "Cursors: [" + change.getRemoved().stream().map(c -> ((CursorModel) c).getName()).collect(Collectors.joining(",")) + "] were removed");
+                    D.info(MainViewController.this, () -> "Cursors: [" + change.getRemoved().stream().map(c -> ((CursorModel) c).getName()).collect(Collectors.joining(",")) + "] were removed");
                     cursors.stream()
                             .filter(ctrl -> change.getRemoved().contains(ctrl.getData()))
                             .forEach(ctrl -> vbCursors.getChildren().remove(ctrl.getViewRoot()));
@@ -105,32 +135,97 @@ public class MainViewController {
         });
 
         // Data generation
-        generator.deltaProperty().addListener((o, ov, nv) -> chart.getPlotModel().setDelta(nv.doubleValue() / 1000.0));
-        generator.numberOfSeriesProperty().addListener((o, ov, nv) -> {
-            final ObservableList<XYChart.Series<Number, Number>> chartSeries = chart.getData();
-            chartSeries.clear();
-            for (int i = 0; i < nv.intValue(); i++) {
-                chartSeries.add(new XYChart.Series<>());
-            }
-        });
         generator.setDelta(200);
         generator.setUpdateInterval(40);
         generator.setNumberOfSeries(6);
         generator.setPeriod(3215);
-        generator.dataReadyProperty().addListener((o, wasReady, isReady) -> {
-            if (isReady) {
-                Platform.runLater(() -> chart.getPlotModel().addData(generator.getData()));
-            }
-        });
+        generator.setFrameSwap(true);
+        setSignalSource(generator);
 
         Platform.runLater(() -> onResetZoomClicked(null));
         D.info(MainViewController.this, "Initialized");
     }
 
+    /**
+     * Replaces source of plotted data, previous source is stopped.
+     *
+     * @param source new source of data
+     */
+    public void setSignalSource(SignalSource source) {
+        this.source.stop();
+        this.source.sampleIntervalProperty().removeListener(sampleIntervalListener);
+        this.source.numberOfSeriesProperty().removeListener(numberOfSeriesListener);
+        this.source.dataReadyProperty().removeListener(dataReadyListener);
+
+        D.info(MainViewController.this, "Setting signal source: {}", source);
+
+        this.source = source;
+        source.sampleIntervalProperty().addListener(sampleIntervalListener);
+        source.numberOfSeriesProperty().addListener(numberOfSeriesListener);
+        source.dataReadyProperty().addListener(dataReadyListener);
+        frameBridge.clear();
+        resetChartSeries(source.getNumberOfSeries());
+        chart.getPlotModel().setDelta(source.getSampleInterval());
+        chart.getPlotModel().reset();
+    }
+
+    /**
+     * @return bridge delivering source's frames to the chart, exposes delivery metrics
+     */
+    public FxFrameBridge getFrameBridge() {
+        return frameBridge;
+    }
+
+    /**
+     * @return chart the plot models draw into
+     */
+    public ExtendedLineChart getChart() {
+        return chart;
+    }
+
+    /**
+     * Selects how the chart stores and draws series, chart data is dropped
+     *
+     * @param renderBackend backend to use
+     */
+    public void setRenderBackend(RenderBackend renderBackend) {
+        chart.setRenderBackend(renderBackend);
+    }
+
+    /**
+     * @param settleDelay  time after the last pan or zoom change series are drawn in full quality again, in ms
+     * @param coarseFactor how many times coarser series are reduced while panning or zooming, 1 to disable
+     */
+    public void setLevelOfDetail(double settleDelay, int coarseFactor) {
+        chart.setLodSettleDelay(settleDelay);
+        chart.setLodCoarseFactor(coarseFactor);
+    }
+
+    /**
+     * Records data of the current source, sources which cannot be recorded are reported and ignored
+     *
+     * @param recorder recorder or null to stop recording
+     */
+    public void setRecorder(SampleRecorder recorder) {
+        if (!(source instanceof SignalSourceBase)) {
+            D.error(MainViewController.this, "Source: {} cannot be recorded", source);
+            return;
+        }
+        ((SignalSourceBase) source).setRecorder(recorder);
+    }
+
+    private void resetChartSeries(int numberOfSeries) {
+        final ObservableList<XYChart.Series<Number, Number>> chartSeries = chart.getData();
+        chartSeries.clear();
+        for (int i = 0; i < numberOfSeries; i++) {
+            chartSeries.add(new XYChart.Series<>());
+        }
+    }
+
     @FXML
     void onAddClicked(ActionEvent e) {
         CursorModel cursorModel = new CursorModel();
-        D.info(MainViewController.this, "Adding cursor: " + cursorModel);
+        D.info(MainViewController.this, "Adding cursor: {}", cursorModel);
         CursorManager.getInstance().register(cursorModel);
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/CursorView.fxml"));
         try {
@@ -140,21 +235,21 @@ public class MainViewController {
             vbCursors.getChildren().add(root);
             cursors.add(controller);
             chart.addCursor(cursorModel);
-            D.info(MainViewController.this, "Added cursor: " + cursorModel);
+            D.info(MainViewController.this, "Added cursor: {}", cursorModel);
         } catch (IOException ex) {
-            D.error(MainViewController.this, "Failed loading CursorView: " + ex);
+            D.error(MainViewController.this, "Failed loading CursorView: {}", ex);
             ex.printStackTrace();
         }
     }
 
     @FXML
     void onStartClicked(ActionEvent e) {
-        generator.start();
+        source.start();
     }
 
     @FXML
     void onStopClicked(ActionEvent e) {
-        generator.stop();
+        source.stop();
         cbPlotMode.getSelectionModel().select(PlotMode.FREE);
     }
 
@@ -167,6 +262,7 @@ public class MainViewController {
     @FXML
     public void onResetDataClicked(ActionEvent event) {
         chart.getPlotModel().reset();
-        generator.reset();
+        frameBridge.clear();
+        source.reset();
     }
 }
@@ -0,0 +1,99 @@
+package plot;
+
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PointList} over a list of chart data, used by {@link RenderBackend#NODES}
+ */
+public class DataPointList implements PointList {
+
+    private final List<XYChart.Data<Number, Number>> points;
+
+    /**
+     * @param points list to operate on, typically series' data
+     */
+    public DataPointList(List<XYChart.Data<Number, Number>> points) {
+        this.points = points;
+    }
+
+    public List<XYChart.Data<Number, Number>> getPoints() {
+        return points;
+    }
+
+    @Override
+    public int size() {
+        return points.size();
+    }
+
+    @Override
+    public double getX(int index) {
+        return points.get(index).getXValue().doubleValue();
+    }
+
+    @Override
+    public double getY(int index) {
+        return points.get(index).getYValue().doubleValue();
+    }
+
+    @Override
+    public void add(double x, double y) {
+        points.add(new XYChart.Data<>(x, y));
+    }
+
+    @Override
+    public void setX(int index, double x) {
+        points.get(index).setXValue(x);
+    }
+
+    @Override
+    public void setY(int index, double y) {
+        points.get(index).setYValue(y);
+    }
+
+    @Override
+    public void removeFirst(int count) {
+        points.subList(0, count).clear();
+    }
+
+    @Override
+    public void truncate(int size) {
+        points.subList(size, points.size()).clear();
+    }
+
+    @Override
+    public void clear() {
+        points.clear();
+    }
+
+    /**
+     * Points of other kinds of lists are created first and added with a single addAll, see
+     * {@link #addAll(double[], double[], int)}
+     */
+    @Override
+    public void addAll(PointList other) {
+        if (other instanceof DataPointList) {
+            points.addAll(((DataPointList) other).points);
+            return;
+        }
+        final List<XYChart.Data<Number, Number>> batch = new ArrayList<>(other.size());
+        for (int i = 0; i < other.size(); i++) {
+            batch.add(new XYChart.Data<>(other.getX(i), other.getY(i)));
+        }
+        points.addAll(batch);
+    }
+
+    /**
+     * Points are created first and added with a single addAll, so that series gets one change instead of count
+     */
+    @Override
+    public void addAll(double[] xs, double[] ys, int count) {
+        final List<XYChart.Data<Number, Number>> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(new XYChart.Data<>(xs[i], ys[i]));
+        }
+        points.addAll(batch);
+    }
+}
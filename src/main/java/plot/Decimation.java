@@ -0,0 +1,23 @@
+package plot;
+
+public enum Decimation {
+    /**
+     * Every point is drawn
+     */
+    NONE,
+    /**
+     * Canvas backend reduces points falling into the same pixel column to first, min, max and last of them,
+     * rendering cost depends on plot width instead of number of points and no peak is lost
+     */
+    M4,
+    /**
+     * Largest-Triangle-Three-Buckets: FREE mode reduces series to the chart's point budget incrementally as data
+     * is appended, drawing is then pixel bounded as with {@link #M4}
+     */
+    LTTB,
+    /**
+     * FREE mode keeps whole history of each series in a min/max pyramid and shows only the visible x range at
+     * about two points per pixel, so zooming and panning cost depends on plot width instead of history length
+     */
+    MIN_MAX
+}
@@ -1,11 +1,16 @@
 package plot;
 
 import controllers.CursorPlotController;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.NamedArg;
+import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.scene.Cursor;
 import javafx.scene.ImageCursor;
 import javafx.scene.Node;
@@ -15,11 +20,23 @@ import javafx.scene.image.Image;
 import javafx.scene.input.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
+import javafx.util.Duration;
 import model.CursorModel;
 import plot.models.CursorModeModel;
 import plot.models.PlotModeModelBase;
+import plot.models.SeriesStore;
+import plot.render.CanvasSeriesRenderer;
+import plot.render.GeometryWorker;
+import plot.render.PrimitivePointList;
+import plot.render.ScrollingCanvasRenderer;
+import plot.render.SeriesGeometry;
 import util.CursorManager;
 import util.D;
+import util.RenderScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ExtendedLineChart extends LineChart<Number, Number> {
 
@@ -34,6 +51,28 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
     private final BooleanProperty panning;
     private final ObjectProperty<PlotMode> plotMode;
     private final ObjectProperty<PlotModeModelBase> plotModel;
+    private final ObjectProperty<RenderBackend> renderBackend;
+    private final ObjectProperty<Decimation> decimation;
+    /**
+     * Maximal number of points per series kept by models reducing data, see {@link Decimation#LTTB}
+     */
+    private final IntegerProperty pointBudget;
+    /**
+     * Whether series change only when explicitly invalidated, see {@link #setSeriesCached(boolean)}
+     */
+    private final BooleanProperty seriesCached;
+    /**
+     * Whether pan or zoom gesture is in progress or settled less than {@link #lodSettleDelay} ago
+     */
+    private final BooleanProperty interacting;
+    /**
+     * Time after last pan or zoom change the gesture is considered settled, in ms
+     */
+    private final DoubleProperty lodSettleDelay;
+    /**
+     * How many times coarser series are reduced while {@link #interacting}, 1 disables level of detail
+     */
+    private final IntegerProperty lodCoarseFactor;
 
     private static class Pt {
         double x;
@@ -75,6 +114,27 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
     public ObjectProperty<PlotModeModelBase> plotModelProperty() {
         return plotModel;
     }
+    public ReadOnlyObjectProperty<RenderBackend> renderBackendProperty() {
+        return renderBackend;
+    }
+    public ReadOnlyObjectProperty<Decimation> decimationProperty() {
+        return decimation;
+    }
+    public ReadOnlyIntegerProperty pointBudgetProperty() {
+        return pointBudget;
+    }
+    public ReadOnlyBooleanProperty seriesCachedProperty() {
+        return seriesCached;
+    }
+    public ReadOnlyBooleanProperty interactingProperty() {
+        return interacting;
+    }
+    public ReadOnlyDoubleProperty lodSettleDelayProperty() {
+        return lodSettleDelay;
+    }
+    public ReadOnlyIntegerProperty lodCoarseFactorProperty() {
+        return lodCoarseFactor;
+    }
 
     public Rectangle getZoomRect() {
         return zoomRect.get();
@@ -115,6 +175,33 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
     public PlotModeModelBase getPlotModel() {
         return plotModel.get();
     }
+    public RenderBackend getRenderBackend() {
+        return renderBackend.get();
+    }
+    public Decimation getDecimation() {
+        return decimation.get();
+    }
+    public int getPointBudget() {
+        return pointBudget.get();
+    }
+    public boolean isSeriesCached() {
+        return seriesCached.get();
+    }
+    public boolean isInteracting() {
+        return interacting.get();
+    }
+    public double getLodSettleDelay() {
+        return lodSettleDelay.get();
+    }
+    public int getLodCoarseFactor() {
+        return lodCoarseFactor.get();
+    }
+    /**
+     * @return pixels per decimation bucket series should be reduced to now, coarse factor while interacting
+     */
+    public int getLodFactor() {
+        return isInteracting() ? getLodCoarseFactor() : 1;
+    }
 
     private void setZoomRect(double x, double y, double w, double h) {
         Rectangle zoomRect = getZoomRect();
@@ -151,9 +238,107 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
         this.plotMode.set(plotMode);
     }
     public void setPlotModel(PlotModeModelBase plotModel) {
+        setSeriesCached(false);
+        setSeriesStore(null, false);
         this.plotModel.set(plotModel);
         cursorModeLine.setVisible(plotModel instanceof CursorModeModel);
     }
+    /**
+     * Switches how series are stored and drawn. Points of all series are dropped and plot model is reset.
+     *
+     * @param renderBackend backend to use
+     */
+    public void setRenderBackend(RenderBackend renderBackend) {
+        if (renderBackend == null) {
+            D.error(ExtendedLineChart.this, "Cannot set null render backend");
+            return;
+        }
+        if (renderBackend == getRenderBackend()) return;
+
+        D.info(ExtendedLineChart.this, "Switching render backend to: {}", renderBackend);
+        clearSeriesPoints();
+        this.renderBackend.set(renderBackend);
+        if (renderBackend == RenderBackend.CANVAS) {
+            getPlotChildren().addAll(0, Arrays.asList(canvasRenderer.getCanvas(), scrollingRenderer.getNode()));
+        } else {
+            getPlotChildren().removeAll(canvasRenderer.getCanvas(), scrollingRenderer.getNode());
+        }
+        if (getPlotModel() != null) {
+            getPlotModel().reset();
+        }
+        requestRedraw();
+    }
+    /**
+     * Selects how series points are reduced, see {@link Decimation} for which backend and plot mode each applies to
+     *
+     * @param decimation decimation to use
+     */
+    public void setDecimation(Decimation decimation) {
+        if (decimation == null) {
+            D.error(ExtendedLineChart.this, "Cannot set null decimation");
+            return;
+        }
+        this.decimation.set(decimation);
+        requestRedraw();
+    }
+    public void setPointBudget(int pointBudget) {
+        if (pointBudget < 3) {
+            D.error(ExtendedLineChart.this, "Cannot set point budget < 3");
+            return;
+        }
+        this.pointBudget.set(pointBudget);
+    }
+    private void setInteracting(boolean interacting) {
+        this.interacting.set(interacting);
+    }
+    public void setLodSettleDelay(double lodSettleDelay) {
+        if (lodSettleDelay < 0) {
+            D.error(ExtendedLineChart.this, "Cannot set LOD settle delay < 0");
+            return;
+        }
+        this.lodSettleDelay.set(lodSettleDelay);
+    }
+    public void setLodCoarseFactor(int lodCoarseFactor) {
+        if (lodCoarseFactor < 1) {
+            D.error(ExtendedLineChart.this, "Cannot set LOD coarse factor < 1");
+            return;
+        }
+        this.lodCoarseFactor.set(lodCoarseFactor);
+    }
+    /**
+     * Tells that series points change only at once, eg. when buffer is swapped in, and between such changes only
+     * overlays (cursors, zoom rectangle) move. Nodes backend then renders series paths into cached images and lays
+     * them out again only after {@link #invalidateSeries()} or an axis range or size change. Canvas backend keeps
+     * its raster until then in any case.
+     *
+     * @param seriesCached whether series are cached
+     */
+    public void setSeriesCached(boolean seriesCached) {
+        this.seriesCached.set(seriesCached);
+        seriesLayoutValid = false;
+        getData().forEach(s -> cacheSeriesNode(s));
+        requestChartLayout();
+    }
+
+    /**
+     * Makes canvas backend draw channels of the store as series instead of series points. Models owning the store
+     * tell which samples they changed by {@link #invalidateSeriesStore(int, int)}.
+     *
+     * @param store     samples to draw, null to draw series points again
+     * @param scrolling whether oldest samples are dropped as new ones come and the rest moves left, samples are
+     *                  then drawn once and scrolled, see {@link ScrollingCanvasRenderer}
+     */
+    public void setSeriesStore(SeriesStore store, boolean scrolling) {
+        if (store == null && seriesStore == null) return;
+        seriesStore = store;
+        storeScrolling = store != null && scrolling;
+        canvasRenderer.getCanvas().setVisible(!storeScrolling);
+        scrollingRenderer.getNode().setVisible(storeScrolling);
+        scrollingRenderer.clear();
+        storeDirtyFrom = storeChangedFrom = Integer.MAX_VALUE;
+        storeDirtyTo = storeChangedTo = 0;
+        requestRedraw();
+    }
 
     // endregion
 
@@ -163,6 +348,52 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
 
     // endregion
 
+    /**
+     * Points of each series in {@link RenderBackend#CANVAS}, kept in sync with series count
+     */
+    private final List<PrimitivePointList> canvasPoints = new ArrayList<>();
+    private final CanvasSeriesRenderer canvasRenderer = new CanvasSeriesRenderer();
+    private final GeometryWorker geometryWorker = new GeometryWorker(this::onGeometryReady);
+    private final ScrollingCanvasRenderer scrollingRenderer = new ScrollingCanvasRenderer();
+    /**
+     * Samples drawn instead of series points, see {@link #setSeriesStore(SeriesStore, boolean)}
+     */
+    private SeriesStore seriesStore;
+    private boolean storeScrolling;
+    /**
+     * Samples of {@link #seriesStore} changed since last layout, [from, to)
+     */
+    private int storeDirtyFrom = Integer.MAX_VALUE, storeDirtyTo;
+    /**
+     * Samples of {@link #seriesStore} drawn directly while geometry was being prepared, [from, to)
+     */
+    private int storeChangedFrom = Integer.MAX_VALUE, storeChangedTo;
+    /**
+     * Whether canvas redraw was already requested since last layout
+     */
+    private boolean redrawRequested;
+    /**
+     * Number of points changed at the end of each series since last layout, see {@link #endTailUpdate(int)}
+     */
+    private int dirtyTail;
+    /**
+     * Whether series paths were laid out for the current points, axis ranges and size, see {@link #seriesCached}
+     */
+    private boolean seriesLayoutValid;
+    /**
+     * Whether points are being changed between {@link #beginTailUpdate()} and {@link #endTailUpdate(int)}
+     */
+    private boolean tailUpdate;
+    /**
+     * Number of change events of series data and of plot children layout passes, see {@link #getSeriesDataChanges()}
+     */
+    private long seriesDataChanges, layoutPasses;
+    private final ListChangeListener<Data<Number, Number>> seriesDataCounter = c -> seriesDataChanges++;
+    private final ChangeListener<ObservableList<Data<Number, Number>>> seriesDataSwapListener = (o, ov, nv) -> {
+        if (ov != null) ov.removeListener(seriesDataCounter);
+        if (nv != null) nv.addListener(seriesDataCounter);
+    };
+
     public ExtendedLineChart(@NamedArg("xAxis") ValueAxis<Number> xAxis, @NamedArg("yAxis") ValueAxis<Number> yAxis) {
         super(xAxis, yAxis);
 
@@ -177,6 +408,13 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
         panning = new SimpleBooleanProperty(false);
         plotMode = new SimpleObjectProperty<>(PlotMode.BUFFER);
         plotModel = new SimpleObjectProperty<>(null);
+        renderBackend = new SimpleObjectProperty<>(RenderBackend.NODES);
+        decimation = new SimpleObjectProperty<>(Decimation.M4);
+        pointBudget = new SimpleIntegerProperty(4096);
+        seriesCached = new SimpleBooleanProperty(false);
+        interacting = new SimpleBooleanProperty(false);
+        lodSettleDelay = new SimpleDoubleProperty(200.0);
+        lodCoarseFactor = new SimpleIntegerProperty(4);
 
         getPlotChildren().add(cursorModeLine);
         cursorModeLine.setVisible(true);
@@ -208,6 +446,8 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
         yAxis.setLowerBound(-10);
 
         setupPlotModes();
+        setupRendering();
+        setupLevelOfDetail();
         setupZooming();
         setupPanning();
         setupCursors();
@@ -222,10 +462,291 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
 
     // endregion
 
+    // region Rendering
+
+    private void setupRendering() {
+        scrollingRenderer.getNode().setVisible(false);
+        getData().addListener((ListChangeListener<? super Series<Number, Number>>) c -> {
+            countSeriesDataChanges(c);
+            getData().forEach(this::cacheSeriesNode);
+            invalidateSeries();
+            syncCanvasPoints();
+        });
+        getXAxis().lowerBoundProperty().addListener((o, ov, nv) -> invalidateSeries());
+        getXAxis().upperBoundProperty().addListener((o, ov, nv) -> invalidateSeries());
+        getYAxis().lowerBoundProperty().addListener((o, ov, nv) -> invalidateSeries());
+        getYAxis().upperBoundProperty().addListener((o, ov, nv) -> invalidateSeries());
+        getXAxis().widthProperty().addListener((o, ov, nv) -> invalidateSeries());
+        getYAxis().heightProperty().addListener((o, ov, nv) -> invalidateSeries());
+    }
+
+    private void countSeriesDataChanges(ListChangeListener.Change<? extends Series<Number, Number>> c) {
+        while (c.next()) {
+            for (Series<Number, Number> series : c.getRemoved()) {
+                series.getData().removeListener(seriesDataCounter);
+                series.dataProperty().removeListener(seriesDataSwapListener);
+            }
+            for (Series<Number, Number> series : c.getAddedSubList()) {
+                series.getData().addListener(seriesDataCounter);
+                series.dataProperty().addListener(seriesDataSwapListener);
+            }
+        }
+        c.reset();
+    }
+
+    /**
+     * @return number of change events of all series' data so far, the stock chart handles each of them separately
+     * and requests layout for it
+     */
+    public long getSeriesDataChanges() {
+        return seriesDataChanges;
+    }
+
+    /**
+     * @return number of plot children layout passes so far
+     */
+    public long getLayoutPasses() {
+        return layoutPasses;
+    }
+
+    private void cacheSeriesNode(Series<Number, Number> series) {
+        if (series.getNode() != null) {
+            series.getNode().setCache(isSeriesCached());
+        }
+    }
+
+    /**
+     * Makes series be laid out and drawn again with the next layout pass, needed after points change while
+     * {@link #isSeriesCached()}
+     */
+    public void invalidateSeries() {
+        seriesLayoutValid = false;
+        requestRedraw();
+        if (getRenderBackend() == RenderBackend.NODES) {
+            requestChartLayout();
+        }
+    }
+
+    private void syncCanvasPoints() {
+        while (canvasPoints.size() > getData().size()) {
+            canvasPoints.remove(canvasPoints.size() - 1);
+        }
+        while (canvasPoints.size() < getData().size()) {
+            canvasPoints.add(new PrimitivePointList(this::onCanvasPointsChanged));
+        }
+        requestRedraw();
+    }
+
+    /**
+     * @param series index of the series
+     * @return points of the series in the current render backend's storage
+     */
+    public PointList getSeriesPoints(int series) {
+        if (getRenderBackend() == RenderBackend.CANVAS) {
+            return canvasPoints.get(series);
+        }
+        return new DataPointList(getData().get(series).getData());
+    }
+
+    /**
+     * @return empty, detached point list of the current render backend's kind, eg. for buffering
+     */
+    public PointList newPointList() {
+        if (getRenderBackend() == RenderBackend.CANVAS) {
+            return new PrimitivePointList();
+        }
+        return new DataPointList(FXCollections.observableArrayList());
+    }
+
+    /**
+     * Makes points the series' points without copying them, the previous ones are detached and returned. Only the
+     * canvas backend swaps in constant time. Nodes backend replaces the series' data list, on which the chart still
+     * removes the nodes of every previous point and creates one for every new point.
+     *
+     * @param series index of the series
+     * @param points detached list from {@link #newPointList()} of the current render backend
+     * @return previous points of the series
+     */
+    @SuppressWarnings("unchecked")
+    public PointList swapSeriesPoints(int series, PointList points) {
+        if (getRenderBackend() == RenderBackend.CANVAS) {
+            final PrimitivePointList previous = canvasPoints.set(series, (PrimitivePointList) points);
+            requestRedraw();
+            return previous;
+        }
+        final Series<Number, Number> s = getData().get(series);
+        final ObservableList<Data<Number, Number>> previous = s.getData();
+        s.setData((ObservableList<Data<Number, Number>>) ((DataPointList) points).getPoints());
+        return new DataPointList(previous);
+    }
+
+    /**
+     * Removes points of all series, in both render backends, and stops drawing series store if any
+     */
+    public void clearSeriesPoints() {
+        getData().forEach(s -> s.getData().clear());
+        canvasPoints.forEach(PrimitivePointList::clear);
+        setSeriesStore(null, false);
+    }
+
+    /**
+     * @return store drawn instead of series points, null if none
+     */
+    public SeriesStore getSeriesStore() {
+        return seriesStore;
+    }
+
+    /**
+     * Schedules canvas redraw with the next layout pass, cheap to call repeatedly
+     */
+    public void requestRedraw() {
+        if (redrawRequested || getRenderBackend() != RenderBackend.CANVAS) return;
+        redrawRequested = true;
+        requestChartLayout();
+    }
+
+    /**
+     * Redraws samples of the store set by {@link #setSeriesStore(SeriesStore, boolean)} which were changed or
+     * appended with the next layout pass. Scrolling store draws every appended sample regardless of the range.
+     *
+     * @param from index of the first changed sample
+     * @param to   index following the last changed sample
+     */
+    public void invalidateSeriesStore(int from, int to) {
+        if (getRenderBackend() != RenderBackend.CANVAS || to <= from) return;
+        storeDirtyFrom = Math.min(storeDirtyFrom, from);
+        storeDirtyTo = Math.max(storeDirtyTo, to);
+        requestChartLayout();
+    }
+
+    /**
+     * Starts change of series points which only appends points and removes the oldest ones, eg. sweeping cursor.
+     * Until {@link #endTailUpdate(int)} changes do not cause full canvas redraw.
+     */
+    public void beginTailUpdate() {
+        tailUpdate = true;
+    }
+
+    /**
+     * Ends change started by {@link #beginTailUpdate()}, canvas redraws only the appended points with the next
+     * layout pass unless full redraw is requested meanwhile
+     *
+     * @param count number of points appended to each series
+     */
+    public void endTailUpdate(int count) {
+        tailUpdate = false;
+        if (getRenderBackend() != RenderBackend.CANVAS || count <= 0) return;
+        dirtyTail += count;
+        requestChartLayout();
+    }
+
+    private void onCanvasPointsChanged() {
+        if (!tailUpdate) {
+            requestRedraw();
+        }
+    }
+
+    /**
+     * Called on worker's thread, geometry is drawn with the next layout pass
+     */
+    private void onGeometryReady() {
+        RenderScheduler.getInstance().schedule(geometryWorker, this::requestChartLayout);
+    }
+
+    /**
+     * Draws finished geometry if any, then either requests new one from {@link #geometryWorker} for a full redraw
+     * or draws the tail of the series directly. Canvas retains previous content, so nothing is done if layout was
+     * requested by something else.
+     */
+    private void layoutCanvas() {
+        if (seriesStore != null) {
+            layoutStore();
+            return;
+        }
+        final SeriesGeometry geometry = geometryWorker.take();
+        if (geometry != null) {
+            canvasRenderer.draw(geometry);
+            // Tail updates done after the worker read the series were wiped, draw them again
+            if (!redrawRequested && geometry.getNumberOfSeries() > 0 && !canvasPoints.isEmpty()) {
+                final long missed = canvasPoints.get(0).getAppended() - geometry.getAppended(0);
+                dirtyTail = (int) Math.min(Integer.MAX_VALUE, missed);
+            }
+        }
+
+        final boolean matches = canvasRenderer.matches(getXAxis(), getYAxis());
+        final int size = canvasPoints.isEmpty() ? 0 : canvasPoints.get(0).size();
+        if (redrawRequested || dirtyTail > 0 && dirtyTail >= size || !matches && !geometryWorker.isBusy()) {
+            geometryWorker.request(canvasPoints, getXAxis(), getYAxis(), getDecimation(), getLodFactor());
+        } else if (dirtyTail > 0 && matches) {
+            canvasRenderer.renderTail(canvasPoints, getXAxis(), getYAxis(), getDecimation(), dirtyTail);
+        }
+        redrawRequested = false;
+        dirtyTail = 0;
+    }
+
+    /**
+     * Variant of {@link #layoutCanvas()} drawing {@link #seriesStore}, where changed samples may lie anywhere
+     */
+    private void layoutStore() {
+        if (storeScrolling) {
+            if (redrawRequested) {
+                scrollingRenderer.invalidate();
+            }
+            scrollingRenderer.render(seriesStore, getXAxis(), getYAxis(), getDecimation());
+        } else {
+            final SeriesGeometry geometry = geometryWorker.take();
+            if (geometry != null) {
+                canvasRenderer.draw(geometry);
+                // Changes done after the worker read the store may have been wiped, draw them again
+                storeDirtyFrom = Math.min(storeDirtyFrom, storeChangedFrom);
+                storeDirtyTo = Math.max(storeDirtyTo, storeChangedTo);
+                if (!geometryWorker.isBusy()) {
+                    storeChangedFrom = Integer.MAX_VALUE;
+                    storeChangedTo = 0;
+                }
+            }
+
+            final boolean matches = canvasRenderer.matches(getXAxis(), getYAxis());
+            final int size = seriesStore.size();
+            final int dirty = storeDirtyTo - storeDirtyFrom;
+            if (redrawRequested || dirty > 0 && dirty >= size || !matches && !geometryWorker.isBusy()) {
+                geometryWorker.request(seriesStore, getXAxis(), getYAxis(), getDecimation(), getLodFactor());
+                storeChangedFrom = Integer.MAX_VALUE;
+                storeChangedTo = 0;
+            } else if (dirty > 0 && matches) {
+                canvasRenderer.renderRange(seriesStore, storeDirtyFrom, Math.min(storeDirtyTo, size),
+                        getXAxis(), getYAxis(), getDecimation());
+                if (geometryWorker.isBusy()) {
+                    storeChangedFrom = Math.min(storeChangedFrom, storeDirtyFrom);
+                    storeChangedTo = Math.max(storeChangedTo, storeDirtyTo);
+                }
+            }
+        }
+        redrawRequested = false;
+        dirtyTail = 0;
+        storeDirtyFrom = Integer.MAX_VALUE;
+        storeDirtyTo = 0;
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        layoutPasses++;
+        if (getRenderBackend() == RenderBackend.CANVAS) {
+            layoutCanvas();
+            return;
+        }
+        // Cached paths keep their geometry, layout requested by moving overlays need not touch them
+        if (isSeriesCached() && seriesLayoutValid) return;
+        super.layoutPlotChildren();
+        seriesLayoutValid = true;
+    }
+
+    // endregion
+
     // region Cursors
 
     public void addCursor(CursorModel data) {
-        D.info(ExtendedLineChart.this, "Adding cursor: " + data);
+        D.info(ExtendedLineChart.this, "Adding cursor: {}", data);
 
         boolean alreadyPresent = getPlotChildren().stream()
                 .filter(n -> n instanceof CursorPlotController)
@@ -233,14 +754,14 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
                 .anyMatch(cm -> cm == data);
 
         if (alreadyPresent) {
-            D.warn(ExtendedLineChart.this, "Cursor: " + data + " already present");
+            D.warn(ExtendedLineChart.this, "Cursor: {} already present", data);
             return;
         }
 
         CursorPlotController controller = new CursorPlotController(data, getXAxis());
         getPlotChildren().add(controller);
 
-        D.info(ExtendedLineChart.this, "Added cursor: " + data);
+        D.info(ExtendedLineChart.this, "Added cursor: {}", data);
     }
 
     private void setupCursors() {
@@ -276,6 +797,42 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
 
     // endregion
 
+    // region Level of detail
+
+    /**
+     * Ends {@link #interacting} once no gesture changed the axes for {@link #lodSettleDelay}
+     */
+    private final PauseTransition settleTimer = new PauseTransition();
+
+    /**
+     * Tracks pan and zoom gestures of the chart and both axes. While they last series are reduced coarser, see
+     * {@link #getLodFactor()}, and drawn once more in full quality when they settle.
+     */
+    private void setupLevelOfDetail() {
+        settleTimer.setOnFinished(e -> setInteracting(false));
+        final InvalidationListener gestureListener = o -> onGesture();
+        panning.addListener(gestureListener);
+        getXAxis().panningProperty().addListener(gestureListener);
+        getYAxis().panningProperty().addListener(gestureListener);
+        getXAxis().zoomingProperty().addListener(gestureListener);
+        getYAxis().zoomingProperty().addListener(gestureListener);
+        interacting.addListener((o, ov, nv) -> requestRedraw());
+    }
+
+    private void onGesture() {
+        if (getLodCoarseFactor() == 1) return;
+        setInteracting(true);
+        // Drag may pause without being over, settle only after the button is released
+        if (isPanning() || getXAxis().isPanning() || getYAxis().isPanning()) {
+            settleTimer.stop();
+            return;
+        }
+        settleTimer.setDuration(Duration.millis(getLodSettleDelay()));
+        settleTimer.playFromStart();
+    }
+
+    // endregion
+
     // region Panning
 
     private final Pt panAnchor = new Pt();
@@ -328,12 +885,12 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
             getScene().addEventHandler(KeyEvent.KEY_PRESSED, e -> {
                 setZoomInModifierDown(e.getCode() == getZoomInModifier());
                 setZoomOutModifierDown(e.getCode() == getZoomOutModifier());
-                D.info(ExtendedLineChart.this, "Key pressed, zoom in modifier: " + isZoomInModifierDown() + ", zoom out modifier: " + zoomOutModifier);
+                D.debug(ExtendedLineChart.this, "Key pressed, zoom in modifier: {}, zoom out modifier: {}", isZoomInModifierDown(), isZoomOutModifierDown());
             });
             getScene().addEventHandler(KeyEvent.KEY_RELEASED, e -> {
                 setZoomInModifierDown((e.getCode() == getZoomInModifier()) != isZoomInModifierDown());
                 setZoomOutModifierDown((e.getCode() == getZoomOutModifier()) != isZoomOutModifierDown());
-                D.info(ExtendedLineChart.this, "Key released, zoom in modifier: " + isZoomInModifierDown() + ", zoom out modifier: " + zoomOutModifier);
+                D.debug(ExtendedLineChart.this, "Key released, zoom in modifier: {}, zoom out modifier: {}", isZoomInModifierDown(), isZoomOutModifierDown());
             });
 
             getPlotChildren().add(getZoomRect());
@@ -348,7 +905,7 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
 
     private void onZoomRectStart(MouseEvent e) {
         if (isZoomInModifierDown() && !isRectZooming() && e.getButton() == getZoomRectButton()) {
-            D.info(ExtendedLineChart.this, "Starting rect zoom @ [" + e.getX() + "," + e.getY() + "]");
+            D.info(ExtendedLineChart.this, "Starting rect zoom @ [{},{}]", e.getX(), e.getY());
             e.consume();
             Rectangle zoomRect = getZoomRect();
 
@@ -387,7 +944,7 @@ public class ExtendedLineChart extends LineChart<Number, Number> {
     }
     private void onZoomRectEnd(MouseEvent e) {
         if (isRectZooming()) {
-            D.info(ExtendedLineChart.this, "Ending rect zoom @ [" + e.getX() + "," + e.getY() + "]");
+            D.info(ExtendedLineChart.this, "Ending rect zoom @ [{},{}]", e.getX(), e.getY());
             e.consume();
             onZoom(getZoomRect());
             setRectZooming(false);
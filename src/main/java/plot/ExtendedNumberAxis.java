@@ -1,6 +1,5 @@
 package plot;
 
-import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.scene.chart.ValueAxis;
@@ -8,6 +7,7 @@ import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import util.D;
+import util.RenderScheduler;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
@@ -29,6 +29,16 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
 
     private final DecimalFormat tickLabelFormatter = new DecimalFormat("#.###");
 
+    /**
+     * Range set but not yet applied by {@link RenderScheduler}, null if none
+     */
+    private Range pendingRange;
+    /**
+     * Tick values of the last relabel, reused while render is over budget
+     */
+    private List<Number> lastTickValues;
+    private boolean relabelForced;
+
     private final DoubleProperty zoomScale;
     private final BooleanProperty zoomEnable;
     private final BooleanProperty zooming;
@@ -167,7 +177,7 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
 
         if (e.getButton() != getPanMouseButton()) return;
 
-        D.info(ExtendedNumberAxis.this, "Pan started @ [" + e.getX() + "," + e.getY() + "]");
+        D.debug(ExtendedNumberAxis.this, "Pan started @ [{},{}]", e.getX(), e.getY());
 
         setPanning(true);
         panAnchor.x = e.getX();
@@ -190,7 +200,7 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
         double endPx = getSide().isHorizontal() ? e.getX() : e.getY();
         onPan(startPx, endPx);
 
-        D.info(ExtendedNumberAxis.this, "Pan ended");
+        D.debug(ExtendedNumberAxis.this, "Pan ended");
 
         setPanning(false);
         panAnchor.x = panAnchor.y = 0;
@@ -210,12 +220,17 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
         }
 
         double deltaPx = startPx - endPx;
-        D.info(ExtendedNumberAxis.this, "Pan delta [px]: " + deltaPx);
+        if (D.isDebugEnabled()) {
+            D.debug(ExtendedNumberAxis.this, "Pan delta [px]: {}", deltaPx);
+        }
         if (Math.abs(deltaPx) < 3) return false;
 
         double delta = getValueForDisplay(startPx).doubleValue() - getValueForDisplay(endPx).doubleValue();
-        D.info(ExtendedNumberAxis.this, "Pan delta: " + delta);
-        setRange(new Range(getLowerBound() + delta, getUpperBound() + delta), false);
+        if (D.isDebugEnabled()) {
+            D.debug(ExtendedNumberAxis.this, "Pan delta: {}", delta);
+        }
+        Range r = getRange();
+        setRange(new Range(r.lower + delta, r.upper + delta), false);
         return true;
     }
     // endregion
@@ -303,17 +318,41 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
             D.warn(ExtendedNumberAxis.this, "Animations are not supported (setRange)");
         }
         Range r = (Range) range;
-        D.info(ExtendedNumberAxis.this, "Setting new range, lower: " + r.lower + ", upper: " + r.upper);
-        Platform.runLater(() -> setUpperBound(r.upper));
-        Platform.runLater(() -> setLowerBound(r.lower));
+        D.debug(ExtendedNumberAxis.this, "Setting new range, lower: {}, upper: {}", r.lower, r.upper);
+        // Both bounds are applied together with the next pulse, later ranges of the same pulse replace this one
+        pendingRange = r;
+        RenderScheduler.getInstance().schedule(this, () -> {
+            pendingRange = null;
+            setUpperBound(r.upper);
+            setLowerBound(r.lower);
+        });
     }
+    /**
+     * @return range including the one not yet applied, so that pans and zooms within one pulse accumulate
+     */
     @Override
     protected Range getRange() {
-        return new Range(getLowerBound(), getUpperBound());
+        return pendingRange != null ? pendingRange : new Range(getLowerBound(), getUpperBound());
     }
+    /**
+     * Reuses previous tick values while {@link RenderScheduler} is over budget, so that no new tick labels are
+     * created and measured, ticks are then relabeled with the first pulse having budget left
+     */
     @Override
     protected List<Number> calculateTickValues(double length, Object range) {
-        Range r = (Range) range;
+        if (lastTickValues != null && !relabelForced && RenderScheduler.getInstance().isOverBudget()) {
+            RenderScheduler.getInstance().scheduleDeferrable(this, () -> {
+                relabelForced = true;
+                invalidateRange();
+                requestAxisLayout();
+            });
+            return lastTickValues;
+        }
+        relabelForced = false;
+        lastTickValues = calculateTickValues((Range) range);
+        return lastTickValues;
+    }
+    private List<Number> calculateTickValues(Range r) {
         List<Number> tickValues = new ArrayList<>();
 
         // Always 11 major ticks so that screen is divided into 10 segments
@@ -341,12 +380,20 @@ public class ExtendedNumberAxis extends ValueAxis<Number> {
     }
     @Override
     public double getDisplayPosition(Number value) {
+        return getDisplayPosition(value.doubleValue());
+    }
+    /**
+     * Primitive variant of {@link #getDisplayPosition(Number)}, avoids boxing in per-point loops
+     *
+     * @param value value on the axis
+     * @return position in pixels
+     */
+    public double getDisplayPosition(double value) {
         if (getSide().isHorizontal()) {
-            return getWidth() / (getUpperBound() - getLowerBound()) * (value.doubleValue() - getLowerBound());
+            return getWidth() / (getUpperBound() - getLowerBound()) * (value - getLowerBound());
         } else {
-            return (getHeight() * (-getUpperBound() + value.doubleValue())) / (getLowerBound() - getUpperBound());
+            return (getHeight() * (-getUpperBound() + value)) / (getLowerBound() - getUpperBound());
         }
-
     }
     // endregion
 }
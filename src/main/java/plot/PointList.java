@@ -0,0 +1,54 @@
+package plot;
+
+/**
+ * Points [x, y] of a single chart series, storage depends on the chart's {@link RenderBackend}
+ */
+public interface PointList {
+
+    int size();
+
+    double getX(int index);
+
+    double getY(int index);
+
+    /**
+     * Appends point at the end
+     */
+    void add(double x, double y);
+
+    void setX(int index, double x);
+
+    void setY(int index, double y);
+
+    /**
+     * Removes count oldest (first) points
+     *
+     * @param count number of points to remove, must not exceed size
+     */
+    void removeFirst(int count);
+
+    /**
+     * Removes all points past the given size
+     *
+     * @param size number of points to keep, must not exceed current size
+     */
+    void truncate(int size);
+
+    void clear();
+
+    /**
+     * Appends all points of other list
+     *
+     * @param other list to copy points from, not modified
+     */
+    void addAll(PointList other);
+
+    /**
+     * Appends first count points of the arrays at once, lists notifying of changes notify only once
+     *
+     * @param xs    x values
+     * @param ys    y values
+     * @param count number of points to append
+     */
+    void addAll(double[] xs, double[] ys, int count);
+}
@@ -0,0 +1,13 @@
+package plot;
+
+public enum RenderBackend {
+    /**
+     * Stock {@link javafx.scene.chart.LineChart} rendering, one {@link javafx.scene.chart.XYChart.Data} per sample
+     * and a Path with one LineTo per point rebuilt on each layout pass
+     */
+    NODES,
+    /**
+     * Series are kept in primitive arrays and drawn onto a canvas layered under the plot overlays
+     */
+    CANVAS
+}
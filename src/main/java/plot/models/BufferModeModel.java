@@ -2,18 +2,23 @@ package plot.models;
 
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
-import javafx.collections.ObservableList;
-import javafx.scene.chart.XYChart;
-import javafx.scene.chart.XYChart.*;
 import plot.ExtendedLineChart;
+import plot.PointList;
+import plot.RenderBackend;
 import util.D;
+import util.SampleFrame;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class BufferModeModel extends PlotModeModelBase {
 
-    private final List<List<XYChart.Data<Number, Number>>> buffer;
+    private final List<PointList> buffer;
+    /**
+     * Shown and buffered screen in {@link RenderBackend#CANVAS}, both of the x axis range capacity and swapped
+     * when the buffered one is full, null until first data arrives
+     */
+    private SeriesStore screen, bufferScreen;
     private final DoubleProperty bufferFill;
     // region Properties
 
@@ -43,101 +48,149 @@ public class BufferModeModel extends PlotModeModelBase {
         setFirstScreen(true);
         setNextX(0);
         setBufferFill(0.0);
-        getChart().getData().forEach(s -> s.getData().clear());
+        getChart().clearSeriesPoints();
         getChart().getXAxis().setPanEnable(false);
+        getChart().setSeriesCached(false);
         buffer.clear();
+        screen = bufferScreen = null;
         for (int i = 0; i < getChart().getData().size(); i++) {
-            buffer.add(new ArrayList<>());
+            buffer.add(getChart().newPointList());
         }
     }
 
     @Override
-    public void addData(List<List<Double>> data) {
+    public void addData(SampleFrame frame) {
+        if (!isStoreBacked() && buffer.size() != getChart().getData().size()) {
+            D.warn(BufferModeModel.this, "Number of series changed, starting over");
+            reset();
+        }
+        if (isStoreBacked()) {
+            ensureScreens(frame.getNumberOfChannels());
+            showStore(screen, false);
+        }
         if (isFirstScreen()) {
-            addDataFirstScreen(data);
+            addDataFirstScreen(frame, 0);
         } else {
-            addDataBuffer(data);
+            addDataBuffer(frame, 0);
         }
     }
 
     /**
      * Adds points so that they appear in the chart immediately.
      *
-     * @param data list of series -> y values list
+     * @param frame  series -> y values
+     * @param offset offset of the first value to add
      */
-    private void addDataFirstScreen(List<List<Double>> data) {
-        D.info(BufferModeModel.this, "First screen adding, last x: " + getNextX());
+    private void addDataFirstScreen(SampleFrame frame, int offset) {
+        D.debug(BufferModeModel.this, "First screen adding, last x: {}", getNextX());
 
-        checkDataValid(data);
+        checkDataValid(frame);
 
-        final ObservableList<Series<Number, Number>> chartSeries = getChart().getData();
         final double maxX = getChart().getXAxis().getUpperBound();
-        double x = 0;
+        int numMoved = 0;
 
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            x = moveDataToPointsList(yValues, chartSeriesPoints);
+        if (isStoreBacked()) {
+            numMoved = moveDataToStore(frame, offset, screen);
+            getChart().invalidateSeriesStore(screen.size() - numMoved, screen.size());
+        } else {
+            for (int i = 0; i < frame.getNumberOfChannels(); i++) {
+                numMoved = moveDataToPointsList(frame, i, offset, getChart().getSeriesPoints(i));
+            }
         }
+        double x = getNextX(numMoved);
 
         setNextX(x);
 
         setFirstScreen(x <= maxX);
         if (!isFirstScreen()) {
-            D.info(BufferModeModel.this, "Adding to leftovers from first screen to the buffer");
+            D.debug(BufferModeModel.this, "Adding to leftovers from first screen to the buffer");
+            // From now on screen changes only when buffer is swapped in
+            getChart().setSeriesCached(true);
             setNextX(0.0);
-            addDataBuffer(data);
+            addDataBuffer(frame, offset + numMoved);
         }
 
-        D.info(BufferModeModel.this, "Finished adding, last x: " + getNextX());
+        D.debug(BufferModeModel.this, "Finished adding, last x: {}", getNextX());
     }
 
     /**
      * Adds point values so that they are placed in the buffer. If buffer is filled during this operation it is swapped.
      *
-     * @param data list of series -> y values list
+     * @param frame  series -> y values
+     * @param offset offset of the first value to add
      */
-    private void addDataBuffer(List<List<Double>> data) {
-        D.info(BufferModeModel.this, "Adding to buffer");
+    private void addDataBuffer(SampleFrame frame, int offset) {
+        D.debug(BufferModeModel.this, "Adding to buffer");
 
-        checkDataValid(data);
+        checkDataValid(frame);
 
         final double maxX = getChart().getXAxis().getUpperBound();
-        double x = 0;
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<Data<Number, Number>> bufferSeriesPoints = buffer.get(i);
-            x = moveDataToPointsList(yValues, bufferSeriesPoints);
+        int numMoved = 0;
+        if (isStoreBacked()) {
+            numMoved = moveDataToStore(frame, offset, bufferScreen);
+        } else {
+            for (int i = 0; i < frame.getNumberOfChannels(); i++) {
+                final PointList bufferSeriesPoints = buffer.get(i);
+                numMoved = moveDataToPointsList(frame, i, offset, bufferSeriesPoints);
+            }
         }
+        double x = getNextX(numMoved);
         setNextX(x);
 
-        D.info(BufferModeModel.this, "Last x after adding: " + getNextX() + ", maxX: " + maxX);
+        D.debug(BufferModeModel.this, "Last x after adding: {}, maxX: {}", getNextX(), maxX);
         setBufferFill(x / maxX);
         if (getBufferFill() >= 1) {
             swapBuffer();
-            // At this point data may still contain some values which didn't fit into buffer before (filled up)
-            addDataBuffer(data);
+            // At this point frame may still contain some values which didn't fit into buffer before (filled up)
+            addDataBuffer(frame, offset + numMoved);
         }
-        D.info(BufferModeModel.this, "Added to buffer, last x: " + getNextX() + ", buffer fill: " + getBufferFill());
+        D.debug(BufferModeModel.this, "Added to buffer, last x: {}, buffer fill: {}", getNextX(), getBufferFill());
     }
 
     /**
-     * Replaces chart data with buffered data.
+     * Shows buffered data in place of chart data by swapping references, the screen shown so far is emptied and
+     * becomes the buffer. No samples are copied, though nodes backend still replaces the data nodes of every point,
+     * see {@link ExtendedLineChart#swapSeriesPoints(int, PointList)}.
      */
     private void swapBuffer() {
-        D.info(BufferModeModel.this, "Swapping buffer");
-
-        final ObservableList<Series<Number, Number>> chartSeries = getChart().getData();
-        for (int i = 0; i < chartSeries.size(); i++) {
-            final List<Data<Number, Number>> bufferSeriesPoints = buffer.get(i);
-            final List<Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            chartSeriesPoints.clear();
-            chartSeriesPoints.addAll(bufferSeriesPoints);
-            bufferSeriesPoints.clear();
+        D.debug(BufferModeModel.this, "Swapping buffer");
+
+        if (isStoreBacked()) {
+            final SeriesStore shown = screen;
+            screen = bufferScreen;
+            bufferScreen = shown;
+            bufferScreen.clear();
+            getChart().setSeriesStore(screen, false);
+        } else {
+            for (int i = 0; i < buffer.size(); i++) {
+                final PointList shown = getChart().swapSeriesPoints(i, buffer.get(i));
+                shown.clear();
+                buffer.set(i, shown);
+            }
+            getChart().invalidateSeries();
         }
         setNextX(0);
 
-        D.info(BufferModeModel.this, "Buffer swapped");
+        D.debug(BufferModeModel.this, "Buffer swapped");
     }
 
+    /**
+     * Creates both screens with capacity of the x axis range unless they already fit, samples of the previous ones
+     * are kept as long as they fit
+     */
+    private void ensureScreens(int numberOfChannels) {
+        final int capacity = Math.max(1, getScreenCapacity());
+        if (screen != null && screen.getNumberOfChannels() == numberOfChannels && screen.getCapacity() == capacity
+                && screen.getDelta() == getDelta()) return;
+        screen = resize(screen, numberOfChannels, capacity);
+        bufferScreen = resize(bufferScreen, numberOfChannels, capacity);
+    }
+
+    private SeriesStore resize(SeriesStore store, int numberOfChannels, int capacity) {
+        final SeriesStore resized = new SeriesStore(numberOfChannels, capacity, true, 0, getDelta());
+        if (store != null && store.getNumberOfChannels() == numberOfChannels) {
+            resized.appendAll(store);
+        }
+        return resized;
+    }
 }
@@ -6,13 +6,36 @@ import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.ObservableList;
 import javafx.scene.chart.XYChart;
 import plot.ExtendedLineChart;
+import plot.PointList;
+import plot.RenderBackend;
 import util.D;
+import util.SampleFrame;
 
 import java.util.List;
 
 public class CursorModeModel extends PlotModeModelBase {
 
     private final XYChart.Data<Number, Number> cursorsPoint;
+    /**
+     * Samples of the screen in {@link RenderBackend#CANVAS}, null until first data arrives
+     */
+    private SeriesStore screen;
+    /**
+     * Points of each series in {@link RenderBackend#NODES}, taken when the first screen starts
+     */
+    private PointList[] series;
+    /**
+     * Index of the first sample in {@link #series}, points before it are not samples (cursor points)
+     */
+    private int firstSample;
+    /**
+     * Number of samples of a full screen, known once the first screen is full
+     */
+    private int screenSize;
+    /**
+     * Index of the sample under the cursor, the next one to be overwritten
+     */
+    private int head;
 
     // region Properties
 
@@ -42,81 +65,135 @@ public class CursorModeModel extends PlotModeModelBase {
     public void reset() {
         setFirstScreen(true);
         setNextX(0);
-        getChart().getData().forEach(s -> s.getData().clear());
+        screen = null;
+        series = null;
+        screenSize = head = 0;
+        getChart().clearSeriesPoints();
         getChart().getXAxis().setPanEnable(false);
     }
 
+    /**
+     * Adds data at the cursor. Until the first screen is full samples are appended, then samples ahead of the
+     * cursor are overwritten in place by a write head which wraps to the start at the end of the screen. Nothing
+     * is shifted or removed, so an update costs only as much as the new samples and canvas redraws just the strip
+     * they swept.
+     */
     @Override
-    public void addData(List<List<Double>> data) {
-        if (isFirstScreen()) {
-            addDataFirstScreen(data);
-        } else {
-            addDataCursor(data);
+    public void addData(SampleFrame frame) {
+        checkDataValid(frame);
+        if (series != null && series.length != getChart().getData().size()) {
+            D.warn(CursorModeModel.this, "Number of series changed, starting over");
+            reset();
+        }
+        if (isStoreBacked()) {
+            prepareScreen(frame.getNumberOfChannels());
+        } else if (series == null) {
+            prepareSeries();
+        }
+
+        int offset = 0;
+        while (offset < frame.size()) {
+            if (isFirstScreen()) {
+                offset += appendFirstScreen(frame, offset);
+                continue;
+            }
+            if (screenSize == 0) break;
+
+            final int count = Math.min(frame.size() - offset, screenSize - head);
+            overwrite(frame, offset, count);
+            offset += count;
+            head += count;
+            if (head == screenSize) {
+                head = 0;
+            }
+            setNextX(head * getDelta());
         }
+
+        D.debug(CursorModeModel.this, "Added data, last x: {}", getNextX());
     }
 
     /**
-     * Adds points so that they appear in the chart immediately.
+     * Appends samples of the first screen as long as they fit, ends the first screen once it's full
      *
-     * @param data list of series -> y values list
+     * @return number of appended samples
      */
-    private void addDataFirstScreen(List<List<Double>> data) {
-        D.info(CursorModeModel.this, "First screen adding, last x: " + getNextX());
-
-        checkDataValid(data);
-
-        final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
+    private int appendFirstScreen(SampleFrame frame, int offset) {
         final double maxX = getChart().getXAxis().getUpperBound();
-        double x = 0;
-
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<XYChart.Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            x = moveDataToPointsList(yValues, chartSeriesPoints);
+        final int numMoved;
+        final int size;
+        if (screen != null) {
+            numMoved = moveDataToStore(frame, offset, screen);
+            size = screen.size();
+            getChart().invalidateSeriesStore(size - numMoved, size);
+        } else {
+            int moved = 0;
+            for (int i = 0; i < series.length; i++) {
+                moved = moveDataToPointsList(frame, i, offset, series[i]);
+            }
+            numMoved = moved;
+            size = series.length == 0 ? 0 : series[0].size() - firstSample;
         }
+        setNextX(getNextX(numMoved));
 
-        setNextX(x);
-        setFirstScreen(x <= maxX);
-        if (!isFirstScreen()) {
-            setNextX(0.0);
-            addDataCursor(data);
+        final boolean full = getNextX() > maxX || screen != null && screen.size() == screen.getCapacity();
+        if (full || numMoved == 0) {
+            setFirstScreen(false);
+            screenSize = size;
+            head = 0;
+            setNextX(0);
+            // Cursor points are gone after the first sweep as they used to be removed along with the oldest samples
+            if (series != null && firstSample > 0) {
+                for (PointList points : series) {
+                    points.removeFirst(firstSample);
+                }
+                firstSample = 0;
+            }
         }
-
-        D.info(CursorModeModel.this, "Finished adding, last x: " + getNextX());
+        return numMoved;
     }
 
     /**
-     * Adds point values so that they replace points on the right of the cursor.
-     * Cursor is then moved.
-     *
-     * @param data list of series -> y values list
+     * Overwrites count samples starting at the write head
      */
-    private void addDataCursor(List<List<Double>> data) {
-        D.info(CursorModeModel.this, "Adding before cursor");
-
-        checkDataValid(data);
-
-        final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
-        final double maxX = getChart().getXAxis().getUpperBound();
-        double x = 0.0;
-
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<XYChart.Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            x = moveDataToPointsList(yValues, chartSeriesPoints);
-            chartSeriesPoints.subList(0, yValues.size()).clear();
+    private void overwrite(SampleFrame frame, int offset, int count) {
+        if (screen != null) {
+            screen.set(head, frame, offset, count);
+            getChart().invalidateSeriesStore(head, head + count);
+            return;
+        }
+        for (int i = 0; i < series.length; i++) {
+            final PointList points = series[i];
+            for (int k = 0; k < count; k++) {
+                points.setY(firstSample + head + k, frame.get(i, offset + k));
+            }
         }
-        setNextX(x);
+    }
 
-        if (x >= maxX) {
+    /**
+     * Creates the store for a screen of the x axis range, unless the current one fits the data
+     */
+    private void prepareScreen(int numberOfChannels) {
+        if (screen == null || screen.getDelta() != getDelta() || screen.getNumberOfChannels() != numberOfChannels) {
+            screen = new SeriesStore(numberOfChannels, Math.max(1, getScreenCapacity()), true, 0, getDelta());
+            setFirstScreen(true);
             setNextX(0);
-            addDataCursor(data);
+            screenSize = head = 0;
         }
+        showStore(screen, false);
+    }
 
-        D.info(CursorModeModel.this, "Added before cursor, lastX: " + getNextX());
+    private void prepareSeries() {
+        series = new PointList[getChart().getData().size()];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = getChart().getSeriesPoints(i);
+        }
+        firstSample = series.length == 0 ? 0 : series[0].size();
     }
 
     private void addCursorPoints() {
+        // Canvas backend draws cursor line as an overlay, points of a nodes-backed chart carry it instead
+        if (getChart().getRenderBackend() != RenderBackend.NODES) return;
+
         final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
 
         for (int i = 0; i < chartSeries.size(); i++) {
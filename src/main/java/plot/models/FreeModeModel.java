@@ -1,14 +1,48 @@
 package plot.models;
 
-import javafx.collections.ObservableList;
-import javafx.scene.chart.XYChart;
+import javafx.beans.InvalidationListener;
+import javafx.beans.WeakInvalidationListener;
+import plot.Decimation;
 import plot.ExtendedLineChart;
+import plot.ExtendedNumberAxis;
+import plot.PointList;
+import plot.RenderBackend;
+import plot.render.LttbDecimator;
+import plot.render.MinMaxPyramid;
+import plot.render.PrimitivePointList;
 import util.D;
-
-import java.util.List;
+import util.RenderScheduler;
+import util.SampleFrame;
 
 public class FreeModeModel extends PlotModeModelBase {
 
+    /**
+     * Per series reducers used in {@link Decimation#LTTB} mode, null otherwise or until first data
+     */
+    private LttbDecimator[] decimators;
+    /**
+     * Per series history used in {@link Decimation#MIN_MAX} mode, null otherwise or until first data
+     */
+    private MinMaxPyramid[] pyramids;
+    /**
+     * Whole history in {@link RenderBackend#CANVAS} when points are not reduced on adding ({@link Decimation#NONE}
+     * or {@link Decimation#M4}), null otherwise or until first data
+     */
+    private SeriesStore history;
+    /**
+     * Store of the previous model whose samples the history starts with, see {@link #FreeModeModel(ExtendedLineChart, boolean)}
+     */
+    private SeriesStore inherited;
+    /**
+     * Points of the visible range of a series, reused by every refresh
+     */
+    private final PrimitivePointList visiblePoints = new PrimitivePointList();
+    /**
+     * Refreshes visible points from pyramids when x range, plot width or level of detail changes, held here as axis only
+     * references it weakly so that replaced models are not kept alive
+     */
+    private final InvalidationListener rangeListener = o -> requestRefresh();
+
     public FreeModeModel(ExtendedLineChart chart) {
         this(chart, false);
     }
@@ -19,33 +53,181 @@ public class FreeModeModel extends PlotModeModelBase {
         getChart().getXAxis().setPanEnable(true);
         getChart().getXAxis().setZoomEnable(true);
         if (!inheritData) {
-            getChart().getData().forEach(s -> s.getData().clear());
+            getChart().clearSeriesPoints();
+        } else {
+            inherited = getChart().getSeriesStore();
         }
+
+        final ExtendedNumberAxis xAxis = getChart().getXAxis();
+        final InvalidationListener weakRangeListener = new WeakInvalidationListener(rangeListener);
+        xAxis.lowerBoundProperty().addListener(weakRangeListener);
+        xAxis.upperBoundProperty().addListener(weakRangeListener);
+        xAxis.widthProperty().addListener(weakRangeListener);
+        getChart().interactingProperty().addListener(weakRangeListener);
     }
 
     @Override
-    public void addData(List<List<Double>> data) {
-        checkDataValid(data);
+    public void addData(SampleFrame frame) {
+        checkDataValid(frame);
+
+        D.debug(FreeModeModel.this, "Adding data, channels: {}, each: {} points", frame.getNumberOfChannels(), frame.size());
+
+        if (isStoreBacked() && (getChart().getDecimation() == Decimation.NONE || getChart().getDecimation() == Decimation.M4)) {
+            addDataToHistory(frame);
+            return;
+        }
+        if (getChart().getDecimation() == Decimation.MIN_MAX) {
+            addDataToPyramids(frame);
+            return;
+        }
+        dropHistory();
+        pyramids = null;
+
+        int numMoved = 0;
+
+        for (int i = 0; i < frame.getNumberOfChannels(); i++) {
+            final LttbDecimator decimator = getDecimator(i, frame.getNumberOfChannels());
+            numMoved = decimator == null
+                    ? moveDataToPointsList(frame, i, 0, getChart().getSeriesPoints(i))
+                    : moveDataToDecimator(frame, i, 0, decimator);
+        }
+        setNextX(getNextX(numMoved));
+
+        D.debug(FreeModeModel.this, "Added data, channels: {}, each: {} points", frame.getNumberOfChannels(), frame.size());
+    }
+
+    /**
+     * Appends whole frame to the store regardless of x axis bounds, chart reduces its visible range when drawing
+     */
+    private void addDataToHistory(SampleFrame frame) {
+        decimators = null;
+        pyramids = null;
+        if (history == null || history.getDelta() != getDelta() || history.getNumberOfChannels() != frame.getNumberOfChannels()) {
+            history = new SeriesStore(frame.getNumberOfChannels(), 1024, false, 0, getDelta());
+            if (inherited != null && inherited.getNumberOfChannels() == history.getNumberOfChannels()) {
+                history.appendAll(inherited);
+            }
+            inherited = null;
+        }
+        showStore(history, false);
+
+        history.append(frame, 0, frame.size());
+        setNextX(history.getX(history.size()));
+        getChart().invalidateSeriesStore(history.size() - frame.size(), history.size());
+    }
+
+    private void dropHistory() {
+        if (history == null) return;
+        history = null;
+        getChart().setSeriesStore(null, false);
+    }
 
-        D.info(FreeModeModel.this, "Adding data, channels: " + data.size() + ", each: " + data.get(0).size() + " points");
+    /**
+     * Appends whole frame to the history regardless of x axis bounds and shows the visible range of it.
+     * New pyramids start with the samples shown so far, see {@link #seedPyramid(int)}.
+     */
+    private void addDataToPyramids(SampleFrame frame) {
+        final int numberOfSeries = frame.getNumberOfChannels();
+        if (pyramids == null || pyramids.length != numberOfSeries || pyramids[0].getDx() != getDelta()) {
+            pyramids = new MinMaxPyramid[numberOfSeries];
+            for (int i = 0; i < numberOfSeries; i++) {
+                pyramids[i] = seedPyramid(i);
+            }
+        }
+        dropHistory();
+        for (int i = 0; i < numberOfSeries; i++) {
+            final MinMaxPyramid pyramid = pyramids[i];
+            for (int k = 0; k < frame.size(); k++) {
+                pyramid.add(frame.get(i, k));
+            }
+        }
+        setNextX(getNextX(frame.size()));
+        refreshVisible();
 
-        final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
-        double x = 0;
+        D.debug(FreeModeModel.this, "Added data to pyramids, channels: {}, each: {} points", numberOfSeries, pyramids[0].size());
+    }
 
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<XYChart.Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            x = moveDataToPointsList(yValues, chartSeriesPoints);
+    /**
+     * Creates pyramid of a series holding its samples shown so far, taken from the history store or from series
+     * points if they are evenly spaced by delta and end just before next x. Points which are not, eg. already
+     * reduced by LTTB or spaced by a previous delta, cannot be placed into a pyramid and are dropped.
+     */
+    private MinMaxPyramid seedPyramid(int series) {
+        if (history != null && series < history.getNumberOfChannels() && history.getDelta() == getDelta()) {
+            final MinMaxPyramid pyramid = new MinMaxPyramid(history.getX0(), getDelta());
+            for (int k = 0; k < history.size(); k++) {
+                pyramid.add(history.getY(series, k));
+            }
+            return pyramid;
         }
-        setNextX(x);
 
-        D.info(FreeModeModel.this, "Added data, channels: " + data.size() + ", each: " + data.get(0).size() + " points");
+        final PointList points = getChart().getSeriesPoints(series);
+        final int n = points.size();
+        if (n == 0) return new MinMaxPyramid(getNextX(), getDelta());
+        final double tolerance = getDelta() / 2;
+        final boolean even = Math.abs(points.getX(0) + n * getDelta() - getNextX()) < tolerance
+                && Math.abs(points.getX(n - 1) - points.getX(0) - (n - 1) * getDelta()) < tolerance;
+        if (!even) {
+            D.warn(FreeModeModel.this, "Points of series #{} are not evenly spaced, dropping them", series);
+            return new MinMaxPyramid(getNextX(), getDelta());
+        }
+        final MinMaxPyramid pyramid = new MinMaxPyramid(points.getX(0), getDelta());
+        for (int k = 0; k < n; k++) {
+            pyramid.add(points.getY(k));
+        }
+        return pyramid;
+    }
+
+    private void requestRefresh() {
+        if (pyramids == null) return;
+        // Range changes come as separate lower and upper bound updates, refresh once for both
+        RenderScheduler.getInstance().schedule(this, this::refreshVisible);
+    }
+
+    /**
+     * Replaces points of every series with the pyramid's view of the visible x range
+     */
+    private void refreshVisible() {
+        if (pyramids == null || getChart().getDecimation() != Decimation.MIN_MAX) return;
+
+        final ExtendedNumberAxis xAxis = getChart().getXAxis();
+        // Fewer, wider buckets while panning or zooming
+        final int pixels = (int) Math.ceil(xAxis.getWidth() / getChart().getLodFactor());
+        for (int i = 0; i < pyramids.length && i < getChart().getData().size(); i++) {
+            visiblePoints.clear();
+            pyramids[i].query(xAxis.getLowerBound(), xAxis.getUpperBound(), pixels, visiblePoints);
+            final PointList points = getChart().getSeriesPoints(i);
+            points.clear();
+            points.addAll(visiblePoints);
+        }
+    }
+
+    /**
+     * @return LTTB reducer of the series when it is selected, null if points are appended as they are
+     */
+    private LttbDecimator getDecimator(int series, int numberOfSeries) {
+        if (getChart().getDecimation() != Decimation.LTTB) {
+            decimators = null;
+            return null;
+        }
+        final int budget = getChart().getPointBudget();
+        if (decimators == null || decimators.length != numberOfSeries || decimators[0].getTargetPoints() != budget) {
+            decimators = new LttbDecimator[numberOfSeries];
+        }
+        if (decimators[series] == null) {
+            // Points added before LTTB was selected are kept as they are
+            decimators[series] = new LttbDecimator(getChart().getSeriesPoints(series), budget);
+        }
+        return decimators[series];
     }
 
     @Override
     public void reset() {
+        decimators = null;
+        pyramids = null;
+        history = inherited = null;
         setNextX(0);
-        getChart().getData().forEach(s -> s.getData().clear());
+        getChart().clearSeriesPoints();
         getChart().getXAxis().setPanEnable(true);
         getChart().getXAxis().setZoomEnable(true);
     }
@@ -4,10 +4,13 @@ import javafx.beans.property.*;
 import javafx.collections.ObservableList;
 import javafx.scene.chart.XYChart;
 import plot.ExtendedLineChart;
+import plot.PointList;
+import plot.RenderBackend;
+import plot.render.LttbDecimator;
 import util.D;
+import util.SampleFrame;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public abstract class PlotModeModelBase {
 
@@ -15,6 +18,8 @@ public abstract class PlotModeModelBase {
     protected final DoubleProperty delta;
     protected final DoubleProperty nextX;
     protected final BooleanProperty firstScreen;
+    // Points of a single channel collected by collectPoints, reused by every call
+    private double[] batchXs, batchYs;
 
     // region Properties
 
@@ -68,65 +73,165 @@ public abstract class PlotModeModelBase {
         firstScreen = new SimpleBooleanProperty(true);
         delta = new SimpleDoubleProperty(5.0 / 1000.0);
         nextX = new SimpleDoubleProperty(0.0);
+        batchXs = batchYs = new double[0];
     }
 
     /**
      * Checks whether provided data is valid that is:
      * - number of series in data (first level) matches number of series in {@link this.chart}
-     * - number of data points in each series is the same
+     * (number of data points in each series is the same by {@link SampleFrame} definition)
      *
-     * @param data - [series][data_values]
+     * @param frame - [series][data_values]
      */
-    protected void checkDataValid(final List<List<Double>> data) throws IllegalArgumentException {
+    protected void checkDataValid(final SampleFrame frame) throws IllegalArgumentException {
         final ObservableList<XYChart.Series<Number, Number>> seriesList = getChart().getData();
-        D.info(this, "Data size: " + data.size() + " channels size: " + data.stream().map(l -> "" + l.size()).collect(Collectors.joining(",")));
+        if (D.isDebugEnabled()) {
+            D.debug(this, "Data size: {} channels size: {}", frame.getNumberOfChannels(), frame.size());
+        }
 
-        if (seriesList.size() != data.size()) {
+        if (seriesList.size() != frame.getNumberOfChannels()) {
             D.error(this, "Data length not equal to number of series");
             throw new IllegalArgumentException("Data length not equal to number of series");
         }
-        for (int i = 1; i < data.size(); i++) {
-            if (data.get(i - 1).size() != data.get(i).size()) {
-                D.error(this, "Samples for each series must be same size");
-                throw new IllegalArgumentException("Samples for each series must be same size");
-            }
-        }
     }
 
     /**
-     * Moves first list values that they correspond to consecutive points y-values in second list
-     * Added values are removed from first list. If anything stays there it indicates it would lay outside visible range.
+     * Moves frame values of the given channel, starting at offset, so that they correspond to consecutive points
+     * y-values in the list. Frame itself is not modified, number of moved values is returned instead.
+     * If it is less than number of available values the rest would lay outside visible range.
+     * Points are collected first and appended at once, so that a chart series gets a single change per call.
      *
-     * @param yValues list of y values
+     * @param frame   source of y values
+     * @param channel channel of the frame to move
+     * @param offset  offset from the frame's read cursor of the first value to move
      * @param points  list of points [x,y]
-     * @return x value corresponding to last added point (not greater than lastX)
+     * @return number of moved values, x of the last one is not greater than upper bound of x axis
+     */
+    protected int moveDataToPointsList(SampleFrame frame, int channel, int offset, PointList points) {
+        final int numMoved = collectPoints(frame, channel, offset, points.size());
+        if (numMoved > 0) {
+            points.addAll(batchXs, batchYs, numMoved);
+        }
+        return numMoved;
+    }
+
+    /**
+     * Decimating counterpart of {@link #moveDataToPointsList(SampleFrame, int, int, PointList)}, moved values are
+     * appended to the decimator at once
+     *
+     * @param frame     source of y values
+     * @param channel   channel of the frame to move
+     * @param offset    offset from the frame's read cursor of the first value to move
+     * @param decimator decimator of the channel's series
+     * @return number of moved values, x of the last one is not greater than upper bound of x axis
+     */
+    protected int moveDataToDecimator(SampleFrame frame, int channel, int offset, LttbDecimator decimator) {
+        final int numMoved = collectPoints(frame, channel, offset, decimator.getOutput().size());
+        if (numMoved > 0) {
+            decimator.addAll(batchXs, batchYs, numMoved);
+        }
+        return numMoved;
+    }
+
+    /**
+     * Collects points of the frame's channel which fit the x axis into batchXs and batchYs
+     *
+     * @param firstIndex index of the first collected point in its series, for logging only
+     * @return number of collected points
      */
-    protected double moveDataToPointsList(List<Double> yValues, List<XYChart.Data<Number, Number>> points) {
+    private int collectPoints(SampleFrame frame, int channel, int offset, int firstIndex) {
         final double maxX = getChart().getXAxis().getUpperBound();
         final double dx = getDelta();
+        final double x0 = getNextX();
+        final int available = frame.size() - offset;
+        if (batchXs.length < available) {
+            batchXs = new double[Math.max(available, 2 * batchXs.length)];
+            batchYs = new double[batchXs.length];
+        }
 
-        double x = getNextX();
+        final boolean debug = D.isDebugEnabled();
+        double x = x0;
         int numMoved = 0;
+        for (; numMoved < available && x <= maxX; numMoved++, x = x0 + numMoved * dx) {
+            double y = frame.get(channel, offset + numMoved);
+            if (debug) {
+                D.debug(this, "Moving point #{} point [{},{}]", firstIndex + numMoved, x, y);
+            }
+            batchXs[numMoved] = x;
+            batchYs[numMoved] = y;
+        }
+        return numMoved;
+    }
 
-        for (; numMoved < yValues.size() && x <= maxX; numMoved++) {
-            double y = yValues.get(numMoved);
-            XYChart.Data<Number, Number> point = new XYChart.Data<>(x, y);
-            D.info(this, "Moving point #" + points.size() + " point [" + x + "," + y + "]");
-            points.add(point);
-            x += dx;
+    /**
+     * Store counterpart of {@link #moveDataToPointsList(SampleFrame, int, int, PointList)}, appends values of all
+     * channels at once. X of the store's samples is implicit, so only the count is checked against x axis.
+     *
+     * @param frame  source of y values
+     * @param offset offset from the frame's read cursor of the first value to move
+     * @param store  store to append to, its next sample lies at {@link #getNextX()}
+     * @return number of moved values, x of the last one is not greater than upper bound of x axis
+     */
+    protected int moveDataToStore(SampleFrame frame, int offset, SeriesStore store) {
+        final double maxX = getChart().getXAxis().getUpperBound();
+        final int available = frame.size() - offset;
+        final int fit = (int) Math.max(0, Math.floor((maxX - getNextX()) / getDelta()) + 1);
+        int numMoved = Math.min(available, fit);
+        if (store.isBounded()) {
+            // Bounded store would drop its oldest samples instead
+            numMoved = Math.min(numMoved, store.getCapacity() - store.size());
         }
+        store.append(frame, offset, numMoved);
+        return numMoved;
+    }
 
-        yValues.subList(0, numMoved).clear();
+    /**
+     * @return number of samples between 0 and upper bound of x axis inclusive, that is samples of a full screen
+     */
+    protected int getScreenCapacity() {
+        return (int) Math.floor(getChart().getXAxis().getUpperBound() / getDelta()) + 1;
+    }
 
-        return x;
+    /**
+     * @return whether samples are kept in a {@link SeriesStore} drawn by the chart instead of in series points,
+     * so for {@link RenderBackend#CANVAS}
+     */
+    protected boolean isStoreBacked() {
+        return getChart().getRenderBackend() == RenderBackend.CANVAS;
     }
 
     /**
-     * Adds data to chart
+     * Makes the chart draw the store unless it already does, eg. after the chart dropped it along with its points
+     */
+    protected void showStore(SeriesStore store, boolean scrolling) {
+        if (getChart().getSeriesStore() != store) {
+            getChart().setSeriesStore(store, scrolling);
+        }
+    }
+
+    /**
+     * @param numMoved number of values moved by {@link #moveDataToPointsList(SampleFrame, int, int, PointList)}
+     * @return x value following last moved point
+     */
+    protected double getNextX(int numMoved) {
+        return getNextX() + numMoved * getDelta();
+    }
+
+    /**
+     * Adds data to chart, list based adapter of {@link #addData(SampleFrame)}
      *
      * @param data array [series][data_values]
      */
-    public abstract void addData(final List<List<Double>> data);
+    public void addData(final List<List<Double>> data) {
+        addData(SampleFrame.fromLists(data));
+    }
+
+    /**
+     * Adds data to chart. Frame is only read, its read cursor is not moved.
+     *
+     * @param frame samples [series][data_values]
+     */
+    public abstract void addData(final SampleFrame frame);
 
     public abstract void reset();
 }
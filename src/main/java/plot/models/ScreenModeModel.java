@@ -1,52 +1,61 @@
 package plot.models;
 
 import javafx.application.Platform;
-import javafx.collections.ObservableList;
-import javafx.scene.chart.XYChart;
 import plot.ExtendedLineChart;
 import plot.ExtendedNumberAxis;
+import plot.PointList;
+import plot.RenderBackend;
 import util.D;
-
-import java.util.List;
+import util.SampleFrame;
 
 public class ScreenModeModel extends PlotModeModelBase {
 
+    /**
+     * Samples of the screen in {@link RenderBackend#CANVAS}, oldest ones are overwritten once it's full so that
+     * scrolling costs only copying of the new samples, null until first data arrives
+     */
+    private SeriesStore screen;
+
     public ScreenModeModel(ExtendedLineChart chart) {
         super(chart);
-        getChart().getData().forEach(s -> s.getData().clear());
+        getChart().clearSeriesPoints();
         getChart().getXAxis().setPanEnable(false);
     }
 
     @Override
-    public void addData(List<List<Double>> data) {
-        D.info(ScreenModeModel.this, "First screen adding, last x: " + getNextX());
+    public void addData(SampleFrame frame) {
+        D.debug(ScreenModeModel.this, "First screen adding, last x: {}", getNextX());
 
-        checkDataValid(data);
+        checkDataValid(frame);
+
+        if (isStoreBacked()) {
+            addToScreen(frame);
+            D.debug(ScreenModeModel.this, "Finished adding, last x: {}", getNextX());
+            return;
+        }
 
-        final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
         final double maxX = getChart().getXAxis().getUpperBound();
-        final double dx = getDelta();
         double x = getNextX();
 
         if (x > maxX) {
-            int numPointsToAdd = data.get(0).size();
+            int numPointsToAdd = frame.size();
             movePointsLeft(numPointsToAdd);
         }
 
-        for (int i = 0; i < data.size(); i++) {
-            final List<Double> yValues = data.get(i);
-            final List<XYChart.Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            x = moveDataToPointsList(yValues, chartSeriesPoints);
+        int numMoved = 0;
+        for (int i = 0; i < frame.getNumberOfChannels(); i++) {
+            numMoved = moveDataToPointsList(frame, i, 0, getChart().getSeriesPoints(i));
         }
-        setNextX(x);
+        setNextX(getNextX(numMoved));
 
-        D.info(ScreenModeModel.this, "Finished adding, last x: " + getNextX());
+        D.debug(ScreenModeModel.this, "Finished adding, last x: {}", getNextX());
     }
     @Override
     public void reset() {
         setFirstScreen(true);
         setNextX(0);
-        getChart().getData().forEach(s -> s.getData().clear());
+        getChart().clearSeriesPoints();
+        screen = null;
 
         ExtendedNumberAxis xAxis = getChart().getXAxis();
         Platform.runLater(() -> {
@@ -58,19 +67,39 @@ public class ScreenModeModel extends PlotModeModelBase {
         });
     }
 
+    /**
+     * Appends samples to the screen, x values are implicit so nothing is moved when the oldest ones drop out
+     */
+    private void addToScreen(SampleFrame frame) {
+        final int capacity = Math.max(1, getScreenCapacity());
+        if (screen == null || screen.getCapacity() != capacity || screen.getDelta() != getDelta()
+                || screen.getNumberOfChannels() != frame.getNumberOfChannels()) {
+            final SeriesStore resized = new SeriesStore(frame.getNumberOfChannels(), capacity, true, 0, getDelta());
+            if (screen != null && screen.getNumberOfChannels() == resized.getNumberOfChannels()) {
+                resized.appendAll(screen);
+            }
+            screen = resized;
+        }
+        showStore(screen, true);
+
+        screen.append(frame, 0, frame.size());
+        setNextX(screen.size() * getDelta());
+        getChart().invalidateSeriesStore(screen.size() - Math.min(frame.size(), screen.size()), screen.size());
+    }
+
     private void movePointsLeft(int numberOfPoints) {
-        final ObservableList<XYChart.Series<Number, Number>> chartSeries = getChart().getData();
+        final int numOfSeries = getChart().getData().size();
         final double dx = getDelta();
         double x = 0;
-        for (int i = 0; i < chartSeries.size(); i++) {
-            final List<XYChart.Data<Number, Number>> chartSeriesPoints = chartSeries.get(i).getData();
-            chartSeriesPoints.subList(0, numberOfPoints).clear();
+        for (int i = 0; i < numOfSeries; i++) {
+            final PointList chartSeriesPoints = getChart().getSeriesPoints(i);
+            chartSeriesPoints.removeFirst(numberOfPoints);
             for (int j = 0; j < chartSeriesPoints.size(); j++) {
                 x = j * dx;
-                chartSeriesPoints.get(j).setXValue(x);
+                chartSeriesPoints.setX(j, x);
             }
         }
-        setNextX(chartSeries.get(0).getData().size() * dx);
+        setNextX(getChart().getSeriesPoints(0).size() * dx);
     }
 
 }
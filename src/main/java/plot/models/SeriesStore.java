@@ -0,0 +1,242 @@
+package plot.models;
+
+import util.SampleFrame;
+
+import java.util.Arrays;
+
+/**
+ * Samples of all series of a plot model, one primitive column of y values per channel. Sample k lies at
+ * x = x0 + k * delta, so x is computed instead of stored and a sample takes 8 bytes per channel, compared to
+ * a boxed {@link javafx.scene.chart.XYChart.Data} with its properties in a series of a nodes-backed chart.
+ * <p>
+ * Columns are circular: removing the oldest samples only advances the start, and a bounded store overwrites its
+ * oldest samples when appended past capacity, so retained samples are never shifted. Unbounded store grows
+ * instead. Modifications synchronize on the store, so that renderers may read it from their own thread while
+ * holding its monitor.
+ */
+public class SeriesStore {
+
+    private final double[][] columns;
+    private final boolean bounded;
+    private final double x0;
+    private final double delta;
+    private int capacity;
+    /**
+     * Physical slot of sample 0
+     */
+    private int head;
+    private int size;
+    /**
+     * Number of samples dropped from the front, absolute index of sample 0
+     */
+    private long start;
+    /**
+     * Number of samples ever appended, not decreased by removals
+     */
+    private long appended;
+
+    /**
+     * @param numberOfChannels number of columns
+     * @param capacity         initial capacity, exact one if bounded
+     * @param bounded          whether oldest samples are overwritten instead of growing past capacity
+     * @param x0               x of sample 0
+     * @param delta            x distance of consecutive samples
+     */
+    public SeriesStore(int numberOfChannels, int capacity, boolean bounded, double x0, double delta) {
+        if (numberOfChannels < 0) {
+            throw new IllegalArgumentException("Number of channels must be >= 0");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be >= 1");
+        }
+        this.columns = new double[numberOfChannels][capacity];
+        this.capacity = capacity;
+        this.bounded = bounded;
+        this.x0 = x0;
+        this.delta = delta;
+    }
+
+    // region Properties
+
+    public int getNumberOfChannels() {
+        return columns.length;
+    }
+    public int getCapacity() {
+        return capacity;
+    }
+    public boolean isBounded() {
+        return bounded;
+    }
+    public double getX0() {
+        return x0;
+    }
+    public double getDelta() {
+        return delta;
+    }
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * @return absolute index of sample 0, that is number of samples dropped from the front since last clear
+     */
+    public long getStart() {
+        return start;
+    }
+    /**
+     * @return number of samples ever appended, not decreased by removals or clearing
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    // endregion
+
+    public double getX(int index) {
+        return x0 + index * delta;
+    }
+
+    public double getY(int channel, int index) {
+        return columns[channel][slot(index)];
+    }
+
+    /**
+     * Overwrites y value of an existing sample
+     */
+    public synchronized void set(int channel, int index, double y) {
+        columns[channel][slot(index)] = y;
+    }
+
+    /**
+     * Overwrites y values of count existing samples starting at index with frame samples starting at offset
+     *
+     * @param index  index of the first overwritten sample, index + count must not exceed size
+     * @param frame  frame with the same number of channels
+     * @param offset offset from the frame's read cursor
+     * @param count  number of samples
+     */
+    public synchronized void set(int index, SampleFrame frame, int offset, int count) {
+        for (int c = 0; c < columns.length; c++) {
+            final double[] column = columns[c];
+            int slot = slot(index);
+            for (int k = 0; k < count; k++) {
+                column[slot] = frame.get(c, offset + k);
+                if (++slot == capacity) slot = 0;
+            }
+        }
+    }
+
+    /**
+     * Appends count frame samples starting at offset. Bounded store drops as many oldest samples as needed.
+     *
+     * @param frame  frame with the same number of channels
+     * @param offset offset from the frame's read cursor
+     * @param count  number of samples
+     */
+    public synchronized void append(SampleFrame frame, int offset, int count) {
+        if (frame.getNumberOfChannels() != columns.length) {
+            throw new IllegalArgumentException("Frame differs in number of channels");
+        }
+        if (bounded) {
+            // Only newest samples would survive anyway
+            if (count > capacity) {
+                offset += count - capacity;
+                appended += count - capacity;
+                count = capacity;
+            }
+            final int overflow = size + count - capacity;
+            if (overflow > 0) {
+                removeFirst(overflow);
+            }
+        } else {
+            ensureCapacity(size + count);
+        }
+        final int index = size;
+        size += count;
+        appended += count;
+        set(index, frame, offset, count);
+    }
+
+    /**
+     * Appends all samples of other store, bounded store drops as many oldest samples as needed
+     *
+     * @param other store with the same number of channels, not modified
+     */
+    public synchronized void appendAll(SeriesStore other) {
+        if (other.columns.length != columns.length) {
+            throw new IllegalArgumentException("Stores differ in number of channels");
+        }
+        synchronized (other) {
+            for (int k = 0; k < other.size; k++) {
+                if (size == capacity) {
+                    if (bounded) {
+                        removeFirst(1);
+                    } else {
+                        ensureCapacity(size + other.size - k);
+                    }
+                }
+                final int slot = slot(size);
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c][slot] = other.getY(c, k);
+                }
+                size++;
+                appended++;
+            }
+        }
+    }
+
+    /**
+     * Drops count oldest samples, x of the rest moves left by count * delta
+     *
+     * @param count number of samples to drop, must not exceed size
+     */
+    public synchronized void removeFirst(int count) {
+        head = slot(count);
+        size -= count;
+        start += count;
+    }
+
+    /**
+     * Drops all samples and resets start
+     */
+    public synchronized void clear() {
+        head = size = 0;
+        start = 0;
+    }
+
+    /**
+     * Copies count y values of a channel starting at index into dst, callers on other threads must hold the
+     * store's monitor
+     *
+     * @param channel channel to copy
+     * @param index   index of the first sample, index + count must not exceed size
+     * @param count   number of samples
+     * @param dst     array of at least count values
+     */
+    public void read(int channel, int index, int count, double[] dst) {
+        final int first = slot(index);
+        final int chunk = Math.min(count, capacity - first);
+        System.arraycopy(columns[channel], first, dst, 0, chunk);
+        System.arraycopy(columns[channel], 0, dst, chunk, count - chunk);
+    }
+
+    private int slot(int index) {
+        final int slot = head + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= capacity) return;
+        final int newCapacity = Math.max(n, 2 * capacity);
+        for (int c = 0; c < columns.length; c++) {
+            // Unwrap so that sample 0 is at slot 0 again
+            final double[] column = new double[newCapacity];
+            read(c, 0, size, column);
+            columns[c] = column;
+        }
+        head = 0;
+        capacity = newCapacity;
+    }
+}
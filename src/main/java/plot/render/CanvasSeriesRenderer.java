@@ -0,0 +1,257 @@
+package plot.render;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineJoin;
+import plot.Decimation;
+import plot.ExtendedNumberAxis;
+import plot.models.SeriesStore;
+
+import java.util.List;
+
+/**
+ * Draws series held in primitive arrays as polylines onto a canvas covering the plot area.
+ * Value to pixel mapping is the same as {@link ExtendedNumberAxis#getDisplayPosition(Number)}, only without boxing.
+ * Full redraws draw {@link SeriesGeometry} prepared off FX thread. Polyline is broken wherever x decreases,
+ * so that a sweeping series does not connect its newest point with the oldest one. Canvas keeps its content,
+ * so series that changed only at their end may be redrawn partially, see
+ * {@link #renderTail(List, ExtendedNumberAxis, ExtendedNumberAxis, Decimation, int)} and
+ * {@link #renderRange(SeriesStore, int, int, ExtendedNumberAxis, ExtendedNumberAxis, Decimation)}.
+ */
+public class CanvasSeriesRenderer {
+
+    /**
+     * Same as default series colors of the stock chart (modena CHART_COLOR_1..8)
+     */
+    private static final Color[] SERIES_COLORS = {
+            Color.web("#f3622d"), Color.web("#fba71b"), Color.web("#57b757"), Color.web("#41a9c9"),
+            Color.web("#4258c9"), Color.web("#9a42c8"), Color.web("#c84164"), Color.web("#888888")
+    };
+    private static final double LINE_WIDTH = 2.0;
+    /**
+     * Pixels cleared ahead of the newest point of a partial redraw, separates new data from old
+     */
+    private static final double SWEEP_GAP = 4.0;
+
+    private final Canvas canvas;
+    private final M4Decimator m4Decimator;
+    // Pixel coordinates of a series, reused by every render
+    private double[] px, py;
+    // Pixel coordinates of a single run of a polyline not starting at index 0
+    private double[] rx, ry;
+    // Y values of a store channel and their indices
+    private double[] values, indices;
+
+    public CanvasSeriesRenderer() {
+        canvas = new Canvas();
+        // Zooming and panning handlers live on the plot background below
+        canvas.setMouseTransparent(true);
+        m4Decimator = new M4Decimator();
+        px = new double[0];
+        py = new double[0];
+        rx = new double[0];
+        ry = new double[0];
+        values = new double[0];
+        indices = new double[0];
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Resizes canvas to the plot area the geometry was prepared for and redraws all series from it
+     *
+     * @param geometry pixel coordinates of all series, see {@link GeometryWorker}
+     */
+    public void draw(SeriesGeometry geometry) {
+        canvas.setWidth(geometry.getWidth());
+        canvas.setHeight(geometry.getHeight());
+
+        final GraphicsContext gc = prepare();
+        gc.clearRect(0, 0, geometry.getWidth(), geometry.getHeight());
+        for (int s = 0; s < geometry.getNumberOfSeries(); s++) {
+            if (geometry.size(s) < 2) continue;
+
+            gc.setStroke(seriesColor(s));
+            strokeRuns(gc, geometry.xs(s), geometry.ys(s), geometry.size(s));
+        }
+    }
+
+    /**
+     * Redraws only the last count points of every series over the previous content. Points before them must be
+     * unchanged since the last render, except for those removed from the start of the series. Columns spanned by
+     * the redrawn points, plus a small gap ahead of them, are cleared first. The point preceding them is redrawn
+     * too, so that new points are joined with the old ones. Canvas must still match the plot area.
+     *
+     * @param series     series to draw, in chart's series order
+     * @param xAxis      horizontal axis
+     * @param yAxis      vertical axis
+     * @param decimation how points are reduced before drawing
+     * @param count      number of changed points at the end of each series
+     */
+    public void renderTail(List<PrimitivePointList> series, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis,
+                           Decimation decimation, int count) {
+        final GraphicsContext gc = prepare();
+        final double height = canvas.getHeight();
+
+        // Clear all series first, clearing later one's columns must not erase former one's new points
+        for (PrimitivePointList points : series) {
+            final int n = points.size();
+            final double[] xs = points.xs();
+            int runStart = Math.max(0, n - count - 1);
+            for (int i = runStart + 1; i <= n; i++) {
+                if (i < n && xs[i] >= xs[i - 1]) continue;
+                final double left = xAxis.getDisplayPosition(xs[runStart]);
+                final double right = xAxis.getDisplayPosition(xs[i - 1]) + SWEEP_GAP;
+                gc.clearRect(Math.ceil(left), 0, right - Math.ceil(left), height);
+                runStart = i;
+            }
+        }
+        for (int s = 0; s < series.size(); s++) {
+            final PrimitivePointList points = series.get(s);
+            final int n = points.size();
+            if (n < 2) continue;
+
+            gc.setStroke(seriesColor(s));
+            strokeRange(gc, points, Math.max(0, n - count - 1), n, xAxis, yAxis, decimation);
+        }
+    }
+
+    /**
+     * Redraws only samples in [from, to) of every channel of the store over the previous content, the rest must be
+     * unchanged since the last render. Their columns, plus a small gap ahead of them, are cleared first and the
+     * sample preceding them is redrawn too, see
+     * {@link #renderTail(List, ExtendedNumberAxis, ExtendedNumberAxis, Decimation, int)}.
+     *
+     * @param store      samples to draw, a channel per series
+     * @param from       index of the first changed sample
+     * @param to         index following the last changed sample
+     * @param xAxis      horizontal axis
+     * @param yAxis      vertical axis
+     * @param decimation how points are reduced before drawing
+     */
+    public void renderRange(SeriesStore store, int from, int to, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis,
+                            Decimation decimation) {
+        if (to <= from) return;
+        final GraphicsContext gc = prepare();
+        final double xOffset = xAxis.getDisplayPosition(store.getX0());
+        final double xScale = xAxis.getDisplayPosition(store.getX0() + store.getDelta()) - xOffset;
+        final double yOffset = yAxis.getDisplayPosition(0.0);
+        final double yScale = yAxis.getDisplayPosition(1.0) - yOffset;
+
+        final double left = Math.ceil(xOffset + from * xScale);
+        gc.clearRect(left, 0, xOffset + (to - 1) * xScale + SWEEP_GAP - left, canvas.getHeight());
+
+        final int first = Math.max(0, from - 1);
+        final int n = to - first;
+        if (n < 2) return;
+        if (values.length < n) {
+            values = new double[Math.max(n, values.length * 2)];
+            indices = new double[values.length];
+        }
+        for (int k = 0; k < n; k++) {
+            indices[k] = first + k;
+        }
+        ensureCapacity(n);
+        for (int c = 0; c < store.getNumberOfChannels(); c++) {
+            store.read(c, first, n, values);
+            gc.setStroke(seriesColor(c));
+            if (decimation != Decimation.NONE) {
+                final int m = m4Decimator.decimate(indices, values, 0, n, (int) Math.ceil(canvas.getWidth()),
+                        xOffset, xScale, yOffset, yScale);
+                gc.strokePolyline(m4Decimator.xs(), m4Decimator.ys(), m);
+                continue;
+            }
+            for (int k = 0; k < n; k++) {
+                px[k] = xOffset + indices[k] * xScale;
+                py[k] = yOffset + values[k] * yScale;
+            }
+            gc.strokePolyline(px, py, n);
+        }
+    }
+
+    /**
+     * @return stroke color of the series with the given index
+     */
+    static Color seriesColor(int series) {
+        return SERIES_COLORS[series % SERIES_COLORS.length];
+    }
+
+    /**
+     * @return whether canvas covers the plot area spanned by the axes, partial redraw is possible only then
+     */
+    public boolean matches(ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis) {
+        return canvas.getWidth() == xAxis.getWidth() && canvas.getHeight() == yAxis.getHeight();
+    }
+
+    /**
+     * Clears the canvas
+     */
+    public void clear() {
+        canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+    }
+
+    private GraphicsContext prepare() {
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setLineWidth(LINE_WIDTH);
+        gc.setLineJoin(StrokeLineJoin.BEVEL);
+        return gc;
+    }
+
+    /**
+     * Strokes points in [from, to) of a series
+     */
+    private void strokeRange(GraphicsContext gc, PrimitivePointList points, int from, int to,
+                             ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis, Decimation decimation) {
+        if (decimation != Decimation.NONE) {
+            m4Decimator.decimate(points, from, to, xAxis, yAxis);
+            strokeRuns(gc, m4Decimator.xs(), m4Decimator.ys(), m4Decimator.size());
+            return;
+        }
+
+        final double xLower = xAxis.getLowerBound();
+        final double xScale = xAxis.getWidth() / (xAxis.getUpperBound() - xLower);
+        final double yUpper = yAxis.getUpperBound();
+        final double yScale = yAxis.getHeight() / (yAxis.getLowerBound() - yUpper);
+        final int n = to - from;
+        ensureCapacity(n);
+        final double[] xs = points.xs(), ys = points.ys();
+        for (int i = 0; i < n; i++) {
+            px[i] = (xs[from + i] - xLower) * xScale;
+            py[i] = (ys[from + i] - yUpper) * yScale;
+        }
+        strokeRuns(gc, px, py, n);
+    }
+
+    /**
+     * Strokes polyline through n pixel coordinates, broken wherever x decreases
+     */
+    private void strokeRuns(GraphicsContext gc, double[] xs, double[] ys, int n) {
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i < n && xs[i] >= xs[i - 1]) continue;
+            final int length = i - runStart;
+            if (runStart == 0) {
+                gc.strokePolyline(xs, ys, length);
+            } else if (length > 1) {
+                // Canvas takes no offset, copy the run to the start of scratch arrays
+                if (rx.length < length) {
+                    rx = new double[Math.max(length, rx.length * 2)];
+                    ry = new double[rx.length];
+                }
+                System.arraycopy(xs, runStart, rx, 0, length);
+                System.arraycopy(ys, runStart, ry, 0, length);
+                gc.strokePolyline(rx, ry, length);
+            }
+            runStart = i;
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (px.length >= n) return;
+        px = new double[Math.max(n, px.length * 2)];
+        py = new double[px.length];
+    }
+}
@@ -0,0 +1,286 @@
+package plot.render;
+
+import plot.Decimation;
+import plot.ExtendedNumberAxis;
+import plot.models.SeriesStore;
+import util.DaemonThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Converts series values into pixel coordinates on its own thread, so that FX thread only issues draw calls.
+ * <p>
+ * Requests carry a snapshot of the axes taken on FX thread, the latest one replaces any not yet started.
+ * Geometry is double buffered: worker fills the back buffer while FX thread draws the front one and buffers are
+ * swapped when FX thread takes the result, so neither side waits for the other nor allocates per frame.
+ * Series are copied out while holding their monitor, see {@link PrimitivePointList} and {@link SeriesStore}, and
+ * converted only after it's released, so that writers on FX thread wait for a copy, not for decimation.
+ */
+public class GeometryWorker {
+
+    /**
+     * Axes mapping and series to convert, taken on FX thread
+     */
+    private static class Request {
+        final List<PrimitivePointList> series;
+        /**
+         * Store to convert instead of series, null if series are converted
+         */
+        final SeriesStore store;
+        final Decimation decimation;
+        final int columnWidth;
+        final double width, height;
+        final double xOffset, xScale, yOffset, yScale;
+
+        Request(List<PrimitivePointList> series, SeriesStore store, Decimation decimation, int columnWidth,
+                double width, double height, double xOffset, double xScale, double yOffset, double yScale) {
+            this.series = new ArrayList<>(series);
+            this.store = store;
+            this.decimation = decimation;
+            this.columnWidth = columnWidth;
+            this.width = width;
+            this.height = height;
+            this.xOffset = xOffset;
+            this.xScale = xScale;
+            this.yOffset = yOffset;
+            this.yScale = yScale;
+        }
+    }
+
+    private final Runnable onReady;
+    private final ExecutorService executor;
+    private final M4Decimator m4Decimator;
+    private final Object lock;
+    // Worker thread only, y values of every store channel and indices of samples
+    private double[][] columns;
+    private double[] indices;
+    // Worker thread only, copy of a single series
+    private double[] seriesXs, seriesYs;
+
+    // Guarded by lock
+    private Request pending;
+    private SeriesGeometry back, ready;
+    private boolean computing;
+
+    // FX thread only
+    private SeriesGeometry front;
+
+    /**
+     * @param onReady called on the worker's thread whenever new geometry is ready to be taken
+     */
+    public GeometryWorker(Runnable onReady) {
+        this.onReady = onReady;
+        executor = Executors.newSingleThreadExecutor(DaemonThreadFactory.INSTANCE);
+        m4Decimator = new M4Decimator();
+        lock = new Object();
+        columns = new double[0][];
+        indices = new double[0];
+        seriesXs = seriesYs = new double[0];
+        back = new SeriesGeometry();
+        front = new SeriesGeometry();
+    }
+
+    /**
+     * Requests geometry of the series for the current state of the axes, must be called on FX thread
+     *
+     * @param series     series to convert, in chart's series order
+     * @param xAxis      horizontal axis
+     * @param yAxis      vertical axis
+     * @param decimation how points are reduced
+     * @param columnWidth pixels per M4 column, see {@link M4Decimator#setColumnWidth(int)}, points are reduced even
+     *                    without decimation if it's greater than 1
+     */
+    public void request(List<PrimitivePointList> series, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis,
+                        Decimation decimation, int columnWidth) {
+        // Axes map linearly, take coefficients once
+        final double xOffset = xAxis.getDisplayPosition(0.0);
+        final double yOffset = yAxis.getDisplayPosition(0.0);
+        request(series, decimation, columnWidth, xAxis.getWidth(), yAxis.getHeight(),
+                xOffset, xAxis.getDisplayPosition(1.0) - xOffset, yOffset, yAxis.getDisplayPosition(1.0) - yOffset);
+    }
+
+    /**
+     * Variant of {@link #request(List, ExtendedNumberAxis, ExtendedNumberAxis, Decimation, int)} taking linear
+     * value to pixel mapping (pixel = offset + value * scale) instead of axes
+     */
+    public void request(List<PrimitivePointList> series, Decimation decimation, int columnWidth, double width,
+                        double height, double xOffset, double xScale, double yOffset, double yScale) {
+        submit(new Request(series, null, decimation, columnWidth, width, height, xOffset, xScale, yOffset, yScale));
+    }
+
+    /**
+     * Variant of {@link #request(List, ExtendedNumberAxis, ExtendedNumberAxis, Decimation, int)} converting
+     * every channel of the store as a series
+     */
+    public void request(SeriesStore store, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis,
+                        Decimation decimation, int columnWidth) {
+        final double xOffset = xAxis.getDisplayPosition(0.0);
+        final double yOffset = yAxis.getDisplayPosition(0.0);
+        submit(new Request(new ArrayList<>(), store, decimation, columnWidth, xAxis.getWidth(), yAxis.getHeight(),
+                xOffset, xAxis.getDisplayPosition(1.0) - xOffset, yOffset, yAxis.getDisplayPosition(1.0) - yOffset));
+    }
+
+    private void submit(Request request) {
+        synchronized (lock) {
+            pending = request;
+            startIfIdle();
+        }
+    }
+
+    /**
+     * Takes the newest geometry, previously taken one is given back to the worker. Must be called on FX thread.
+     *
+     * @return geometry to draw or null if none was finished since last call
+     */
+    public SeriesGeometry take() {
+        synchronized (lock) {
+            if (ready == null) return null;
+            back = front;
+            front = ready;
+            ready = null;
+            startIfIdle();
+        }
+        return front;
+    }
+
+    /**
+     * @return whether a requested geometry is not yet taken
+     */
+    public boolean isBusy() {
+        synchronized (lock) {
+            return pending != null || computing || ready != null;
+        }
+    }
+
+    // Called with lock held
+    private void startIfIdle() {
+        if (computing || pending == null || back == null) return;
+        computing = true;
+        executor.execute(this::compute);
+    }
+
+    private void compute() {
+        final Request request;
+        final SeriesGeometry geometry;
+        synchronized (lock) {
+            request = pending;
+            geometry = back;
+            pending = null;
+            back = null;
+        }
+
+        fill(request, geometry);
+
+        synchronized (lock) {
+            ready = geometry;
+            computing = false;
+            // Back buffer comes back with the next take, next request waits for it
+        }
+        onReady.run();
+    }
+
+    private void fill(Request request, SeriesGeometry geometry) {
+        m4Decimator.setColumnWidth(Math.max(1, request.columnWidth));
+        if (request.store != null) {
+            fillStore(request, geometry);
+            return;
+        }
+        final int width = (int) Math.ceil(request.width);
+        geometry.reset(request.width, request.height, request.series.size());
+        for (int s = 0; s < request.series.size(); s++) {
+            final PrimitivePointList points = request.series.get(s);
+            final int n;
+            final long appended;
+            synchronized (points) {
+                n = points.size();
+                appended = points.getAppended();
+                if (seriesXs.length < n) {
+                    seriesXs = new double[Math.max(n, 2 * seriesXs.length)];
+                    seriesYs = new double[seriesXs.length];
+                }
+                System.arraycopy(points.xs(), 0, seriesXs, 0, n);
+                System.arraycopy(points.ys(), 0, seriesYs, 0, n);
+            }
+
+            if (request.decimation != Decimation.NONE || request.columnWidth > 1) {
+                final int m = m4Decimator.decimate(seriesXs, seriesYs, 0, n, width,
+                        request.xOffset, request.xScale, request.yOffset, request.yScale);
+                geometry.set(s, m4Decimator.xs(), m4Decimator.ys(), m, appended);
+                continue;
+            }
+
+            geometry.ensureCapacity(s, n);
+            final double[] px = geometry.xs(s), py = geometry.ys(s);
+            for (int i = 0; i < n; i++) {
+                px[i] = request.xOffset + seriesXs[i] * request.xScale;
+                py[i] = request.yOffset + seriesYs[i] * request.yScale;
+            }
+            geometry.setSize(s, n, appended);
+        }
+    }
+
+    /**
+     * Converts channels of the store, indices stand for x so that nothing but y values is copied out of it.
+     * Channels are copied while holding the store's monitor and converted after releasing it.
+     */
+    private void fillStore(Request request, SeriesGeometry geometry) {
+        final SeriesStore store = request.store;
+        final int width = (int) Math.ceil(request.width);
+        final int n, numberOfChannels;
+        final long appended;
+        final double x0, delta;
+        synchronized (store) {
+            n = store.size();
+            numberOfChannels = store.getNumberOfChannels();
+            appended = store.getAppended();
+            x0 = store.getX0();
+            delta = store.getDelta();
+            ensureScratch(numberOfChannels, n);
+            for (int c = 0; c < numberOfChannels; c++) {
+                store.read(c, 0, n, columns[c]);
+            }
+        }
+
+        geometry.reset(request.width, request.height, numberOfChannels);
+        // x = x0 + k * delta
+        final double xOffset = request.xOffset + x0 * request.xScale;
+        final double xScale = delta * request.xScale;
+        for (int c = 0; c < numberOfChannels; c++) {
+            final double[] values = columns[c];
+            if (request.decimation != Decimation.NONE || request.columnWidth > 1) {
+                final int m = m4Decimator.decimate(indices, values, 0, n, width,
+                        xOffset, xScale, request.yOffset, request.yScale);
+                geometry.set(c, m4Decimator.xs(), m4Decimator.ys(), m, appended);
+                continue;
+            }
+
+            geometry.ensureCapacity(c, n);
+            final double[] px = geometry.xs(c), py = geometry.ys(c);
+            for (int k = 0; k < n; k++) {
+                px[k] = xOffset + k * xScale;
+                py[k] = request.yOffset + values[k] * request.yScale;
+            }
+            geometry.setSize(c, n, appended);
+        }
+    }
+
+    private void ensureScratch(int numberOfChannels, int n) {
+        if (columns.length < numberOfChannels) {
+            columns = Arrays.copyOf(columns, numberOfChannels);
+        }
+        for (int c = 0; c < numberOfChannels; c++) {
+            if (columns[c] == null || columns[c].length < n) {
+                columns[c] = new double[Math.max(n, columns[c] == null ? 0 : 2 * columns[c].length)];
+            }
+        }
+        if (indices.length >= n) return;
+        indices = new double[Math.max(n, 2 * indices.length)];
+        for (int k = 0; k < indices.length; k++) {
+            indices[k] = k;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package plot.render;
+
+import plot.PointList;
+
+import java.util.Arrays;
+
+/**
+ * Incremental Largest-Triangle-Three-Buckets reduction of appended points into an output {@link PointList}.
+ * <p>
+ * Points are taken in buckets of {@link #getBucketSize()} raw points. Once the bucket following the current one is
+ * complete, the point of the current bucket forming the largest triangle with the previously kept point and the
+ * average of the following bucket is kept, so each appended point is processed once. Points of incomplete buckets
+ * are shown at the end of the output until their bucket is decided, every half a bucket apart, so output never
+ * holds more than the target plus four points. When more than the target number of points
+ * was kept, kept points are reduced by LTTB to half of the target and bucket size doubles, so that output stays
+ * within target regardless of how many points were appended.
+ * <p>
+ * Decisions are made on primitive arrays and the output is updated once per append call: decided points it does
+ * not show yet and the pending points replace its tail with one truncate and one bulk append, so an appended block
+ * costs the output two changes regardless of its size.
+ * <p>
+ * Points are appended through the decimator and read from its output.
+ */
+public class LttbDecimator {
+
+    private final PointList output;
+    private final int targetPoints;
+    private int bucketSize;
+    /**
+     * Decided points
+     */
+    private double[] keptX, keptY;
+    private int kept;
+    /**
+     * Number of leading output points which are decided points, the rest of the output is stale
+     */
+    private int shown;
+    private double lastX, lastY;
+    // Points appended to the output by a single publish
+    private double[] outX, outY;
+    /**
+     * Raw points of the not yet decided buckets
+     */
+    private double[] px, py;
+    private int pending;
+
+    /**
+     * @param output       list receiving reduced points, points already in it are kept as they are
+     * @param targetPoints maximal number of decided points, at least 3
+     */
+    public LttbDecimator(PointList output, int targetPoints) {
+        if (targetPoints < 3) {
+            throw new IllegalArgumentException("Target must be at least 3 points");
+        }
+        this.output = output;
+        this.targetPoints = targetPoints;
+        this.px = new double[0];
+        this.py = new double[0];
+        this.keptX = new double[0];
+        this.keptY = new double[0];
+        this.outX = new double[0];
+        this.outY = new double[0];
+        restart();
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public int getTargetPoints() {
+        return targetPoints;
+    }
+
+    /**
+     * @return list receiving reduced points
+     */
+    public PointList getOutput() {
+        return output;
+    }
+
+    /**
+     * Appends a single point, output is updated right away
+     */
+    public void add(double x, double y) {
+        append(x, y);
+        publish();
+    }
+
+    /**
+     * Appends first count points of the arrays, output is updated once for all of them
+     *
+     * @param xs    x values
+     * @param ys    y values
+     * @param count number of points to append
+     */
+    public void addAll(double[] xs, double[] ys, int count) {
+        for (int i = 0; i < count; i++) {
+            append(xs[i], ys[i]);
+        }
+        publish();
+    }
+
+    /**
+     * Clears the output and starts over with bucket size 1
+     */
+    public void clear() {
+        output.clear();
+        restart();
+    }
+
+    /**
+     * Reduces points using LTTB, first and last point are always kept
+     *
+     * @param xs        x values
+     * @param ys        y values
+     * @param n         number of points
+     * @param threshold number of points to keep, at least 3
+     * @param outX      receives kept x values, at least threshold long
+     * @param outY      receives kept y values, at least threshold long
+     * @return number of kept points
+     */
+    public static int reduce(double[] xs, double[] ys, int n, int threshold, double[] outX, double[] outY) {
+        if (n <= threshold) {
+            System.arraycopy(xs, 0, outX, 0, n);
+            System.arraycopy(ys, 0, outY, 0, n);
+            return n;
+        }
+
+        final double every = (double) (n - 2) / (threshold - 2);
+        int a = 0, count = 0;
+        outX[count] = xs[0];
+        outY[count++] = ys[0];
+        for (int i = 0; i < threshold - 2; i++) {
+            final int from = (int) (i * every) + 1;
+            final int to = (int) ((i + 1) * every) + 1;
+            final int nextFrom = to;
+            final int nextTo = Math.min((int) ((i + 2) * every) + 1, n);
+
+            double avgX = 0, avgY = 0;
+            for (int j = nextFrom; j < nextTo; j++) {
+                avgX += xs[j];
+                avgY += ys[j];
+            }
+            avgX /= nextTo - nextFrom;
+            avgY /= nextTo - nextFrom;
+
+            int selected = from;
+            double maxArea = -1;
+            for (int j = from; j < to; j++) {
+                final double area = Math.abs((xs[a] - avgX) * (ys[j] - ys[a]) - (xs[a] - xs[j]) * (avgY - ys[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = j;
+                }
+            }
+            outX[count] = xs[selected];
+            outY[count++] = ys[selected];
+            a = selected;
+        }
+        outX[count] = xs[n - 1];
+        outY[count++] = ys[n - 1];
+        return count;
+    }
+
+    private int selectFromFirstBucket() {
+        double avgX = 0, avgY = 0;
+        for (int j = bucketSize; j < 2 * bucketSize; j++) {
+            avgX += px[j];
+            avgY += py[j];
+        }
+        avgX /= bucketSize;
+        avgY /= bucketSize;
+
+        int selected = 0;
+        double maxArea = -1;
+        for (int j = 0; j < bucketSize; j++) {
+            final double area = Math.abs((lastX - avgX) * (py[j] - lastY) - (lastX - px[j]) * (avgY - lastY));
+            if (area > maxArea) {
+                maxArea = area;
+                selected = j;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Takes a point into pending ones and decides the current bucket once the following one is complete,
+     * output is not touched
+     */
+    private void append(double x, double y) {
+        // First point is always kept
+        if (kept == 0) {
+            keep(x, y);
+            return;
+        }
+
+        ensureCapacity(pending + 1);
+        px[pending] = x;
+        py[pending] = y;
+        pending++;
+        if (pending < 2 * bucketSize) return;
+
+        final int selected = selectFromFirstBucket();
+        keep(px[selected], py[selected]);
+        System.arraycopy(px, bucketSize, px, 0, pending - bucketSize);
+        System.arraycopy(py, bucketSize, py, 0, pending - bucketSize);
+        pending -= bucketSize;
+        if (kept > targetPoints) {
+            compact();
+        }
+    }
+
+    private void keep(double x, double y) {
+        if (keptX.length == kept) {
+            keptX = Arrays.copyOf(keptX, Math.max(16, 2 * kept));
+            keptY = Arrays.copyOf(keptY, keptX.length);
+        }
+        keptX[kept] = x;
+        keptY[kept] = y;
+        kept++;
+        lastX = x;
+        lastY = y;
+    }
+
+    /**
+     * Halves decided points and doubles bucket size, output is rewritten by the next publish
+     */
+    private void compact() {
+        kept = reduce(keptX, keptY, kept, Math.max(3, targetPoints / 2), keptX, keptY);
+        lastX = keptX[kept - 1];
+        lastY = keptY[kept - 1];
+        bucketSize *= 2;
+        shown = 0;
+    }
+
+    private int pendingStride() {
+        return Math.max(1, bucketSize / 2);
+    }
+
+    /**
+     * Replaces the output's tail past the shown decided points by the rest of decided points and pending ones
+     */
+    private void publish() {
+        final int stride = pendingStride();
+        final int n = kept - shown + (pending + stride - 1) / stride;
+        if (outX.length < n) {
+            outX = new double[Math.max(n, 2 * outX.length)];
+            outY = new double[outX.length];
+        }
+        System.arraycopy(keptX, shown, outX, 0, kept - shown);
+        System.arraycopy(keptY, shown, outY, 0, kept - shown);
+        int m = kept - shown;
+        for (int i = 0; i < pending; i += stride) {
+            outX[m] = px[i];
+            outY[m++] = py[i];
+        }
+
+        if (output.size() > shown) {
+            output.truncate(shown);
+        }
+        if (m > 0) {
+            output.addAll(outX, outY, m);
+        }
+        shown = kept;
+    }
+
+    private void restart() {
+        bucketSize = 1;
+        pending = 0;
+        kept = 0;
+        // Points already in the output are taken as decided
+        for (int i = 0; i < output.size(); i++) {
+            keep(output.getX(i), output.getY(i));
+        }
+        shown = kept;
+    }
+
+    private void ensureCapacity(int n) {
+        if (px.length >= n) return;
+        px = Arrays.copyOf(px, Math.max(n, 2 * px.length));
+        py = Arrays.copyOf(py, px.length);
+    }
+}
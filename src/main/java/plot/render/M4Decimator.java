@@ -0,0 +1,183 @@
+package plot.render;
+
+import plot.ExtendedNumberAxis;
+
+import java.util.Arrays;
+
+/**
+ * Reduces points of a series to at most four per pixel column: first, min, max and last (M4 aggregation).
+ * Polyline through the reduced points rasterizes the same as through all of them, so no visual peak is lost.
+ * Columns may be made wider than a pixel for a coarser but cheaper result, see {@link #setColumnWidth(int)}.
+ * <p>
+ * Columns are taken from {@link ExtendedNumberAxis#getDisplayPosition(double)}, points left or right of the plot
+ * area are gathered into a single column on each side so that lines entering the plot keep their slope.
+ * Points are visited in list order and a column is flushed whenever it changes, so series whose x is not monotonic
+ * (eg. sweeping cursor mode) are reduced correctly too. Output is in pixel coordinates and reused between calls.
+ */
+public class M4Decimator {
+
+    private double[] px, py;
+    private int size;
+    /**
+     * Pixels per column
+     */
+    private int columnWidth = 1;
+
+    // Mapping of the current decimate() call
+    private double xOffset, xScale, yOffset, yScale;
+    private double[] xs, ys;
+
+    public M4Decimator() {
+        px = new double[0];
+        py = new double[0];
+    }
+
+    /**
+     * @return x pixel coordinates of the reduced points, valid in [0, size())
+     */
+    public double[] xs() {
+        return px;
+    }
+
+    /**
+     * @return y pixel coordinates of the reduced points, valid in [0, size())
+     */
+    public double[] ys() {
+        return py;
+    }
+
+    /**
+     * @return number of reduced points
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getColumnWidth() {
+        return columnWidth;
+    }
+
+    /**
+     * @param columnWidth pixels per column, 1 keeps the result exact, n reduces it to about 4 points per n pixels
+     */
+    public void setColumnWidth(int columnWidth) {
+        if (columnWidth < 1) {
+            throw new IllegalArgumentException("Column width must be >= 1");
+        }
+        this.columnWidth = columnWidth;
+    }
+
+    /**
+     * @param points series to reduce
+     * @param xAxis  axis mapping x values to pixel columns
+     * @param yAxis  axis mapping y values to pixels
+     * @return number of reduced points
+     */
+    public int decimate(PrimitivePointList points, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis) {
+        return decimate(points, 0, points.size(), xAxis, yAxis);
+    }
+
+    /**
+     * Reduces only points in [from, to)
+     *
+     * @param points series to reduce
+     * @param from   index of the first point to reduce
+     * @param to     index after the last point to reduce
+     * @param xAxis  axis mapping x values to pixel columns
+     * @param yAxis  axis mapping y values to pixels
+     * @return number of reduced points
+     */
+    public int decimate(PrimitivePointList points, int from, int to, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis) {
+        // Axes map linearly, take coefficients once instead of calling per point
+        final double xOffset = xAxis.getDisplayPosition(0.0);
+        final double yOffset = yAxis.getDisplayPosition(0.0);
+        return decimate(points.xs(), points.ys(), from, to, (int) Math.ceil(xAxis.getWidth()),
+                xOffset, xAxis.getDisplayPosition(1.0) - xOffset, yOffset, yAxis.getDisplayPosition(1.0) - yOffset);
+    }
+
+    /**
+     * Variant of {@link #decimate(PrimitivePointList, ExtendedNumberAxis, ExtendedNumberAxis)} taking linear
+     * value to pixel mapping (pixel = offset + value * scale) instead of axes
+     *
+     * @param points  series to reduce
+     * @param width   plot width in pixels
+     * @param xOffset pixel position of x = 0
+     * @param xScale  pixels per x unit
+     * @param yOffset pixel position of y = 0
+     * @param yScale  pixels per y unit
+     * @return number of reduced points
+     */
+    public int decimate(PrimitivePointList points, int width, double xOffset, double xScale, double yOffset, double yScale) {
+        return decimate(points.xs(), points.ys(), 0, points.size(), width, xOffset, xScale, yOffset, yScale);
+    }
+
+    /**
+     * Variant of {@link #decimate(PrimitivePointList, int, double, double, double, double)} reducing points held in
+     * plain arrays, from index from (inclusive) to index to (exclusive)
+     */
+    public int decimate(double[] xs, double[] ys, int from, int to, int width,
+                        double xOffset, double xScale, double yOffset, double yScale) {
+        this.xOffset = xOffset;
+        this.xScale = xScale;
+        this.yOffset = yOffset;
+        this.yScale = yScale;
+        this.xs = xs;
+        this.ys = ys;
+        size = 0;
+        // At most 4 points per column plus the two off-plot columns
+        ensureCapacity(Math.min(to - from, 4 * (width + 2)));
+
+        int column = 0, first = -1, last = -1, min = -1, max = -1;
+        for (int i = from; i < to; i++) {
+            final int c = column(xOffset + xs[i] * xScale, width);
+            if (first < 0 || c != column) {
+                if (first >= 0) {
+                    flush(first, min, max, last);
+                }
+                column = c;
+                first = last = min = max = i;
+                continue;
+            }
+            last = i;
+            if (ys[i] < ys[min]) min = i;
+            if (ys[i] > ys[max]) max = i;
+        }
+        if (first >= 0) {
+            flush(first, min, max, last);
+        }
+        xs = ys = null;
+        return size;
+    }
+
+    private int column(double position, int width) {
+        if (position < 0) return -1;
+        if (position >= width) return width;
+        return (int) position / columnWidth;
+    }
+
+    /**
+     * Emits distinct indices of the bucket in their original order
+     */
+    private void flush(int first, int min, int max, int last) {
+        final int a = Math.min(min, max), b = Math.max(min, max);
+        emit(first);
+        if (a > first) emit(a);
+        if (b > a && b > first) emit(b);
+        if (last > b && last > first) emit(last);
+    }
+
+    private void emit(int i) {
+        if (size == px.length) {
+            ensureCapacity(2 * size + 4);
+        }
+        px[size] = xOffset + xs[i] * xScale;
+        py[size] = yOffset + ys[i] * yScale;
+        size++;
+    }
+
+    private void ensureCapacity(int n) {
+        if (px.length >= n) return;
+        px = Arrays.copyOf(px, n);
+        py = Arrays.copyOf(py, n);
+    }
+}
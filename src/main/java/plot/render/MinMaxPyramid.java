@@ -0,0 +1,147 @@
+package plot.render;
+
+import plot.PointList;
+
+import java.util.Arrays;
+
+/**
+ * Whole history of a single series with min/max of every aligned run of 2^k samples, k = 1, 2, ...
+ * <p>
+ * Sample i lies at x = x0 + i * dx. Levels are completed as samples are appended, so appending costs amortized
+ * O(1) and memory is about three times that of the samples. Any x range is then answered from the level whose
+ * buckets are at most as wide as a pixel, that is with a number of points proportional to plot width regardless
+ * of how many samples the range holds.
+ */
+public class MinMaxPyramid {
+
+    private final double x0;
+    private final double dx;
+    private double[] samples;
+    private int size;
+    /**
+     * [level][bucket], level 0 is unused as it is samples themselves
+     */
+    private double[][] mins, maxs;
+    private int levels;
+
+    /**
+     * @param x0 x of the first sample
+     * @param dx x distance between consecutive samples, greater than 0
+     */
+    public MinMaxPyramid(double x0, double dx) {
+        if (dx <= 0) {
+            throw new IllegalArgumentException("Sample distance must be > 0");
+        }
+        this.x0 = x0;
+        this.dx = dx;
+        samples = new double[1024];
+        mins = new double[Integer.SIZE][];
+        maxs = new double[Integer.SIZE][];
+        levels = 1;
+    }
+
+    public double getX0() {
+        return x0;
+    }
+
+    public double getDx() {
+        return dx;
+    }
+
+    /**
+     * @return number of appended samples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of levels including the samples themselves
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * Appends sample and completes all buckets it closes
+     *
+     * @param y value of the sample
+     */
+    public void add(double y) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, 2 * size);
+        }
+        samples[size++] = y;
+
+        for (int level = 1; (size & ((1 << level) - 1)) == 0; level++) {
+            final int bucket = (size >> level) - 1;
+            final double min, max;
+            if (level == 1) {
+                min = Math.min(samples[2 * bucket], samples[2 * bucket + 1]);
+                max = Math.max(samples[2 * bucket], samples[2 * bucket + 1]);
+            } else {
+                min = Math.min(mins[level - 1][2 * bucket], mins[level - 1][2 * bucket + 1]);
+                max = Math.max(maxs[level - 1][2 * bucket], maxs[level - 1][2 * bucket + 1]);
+            }
+            if (level == levels) {
+                mins[level] = new double[16];
+                maxs[level] = new double[16];
+                levels++;
+            } else if (bucket == mins[level].length) {
+                mins[level] = Arrays.copyOf(mins[level], 2 * bucket);
+                maxs[level] = Arrays.copyOf(maxs[level], 2 * bucket);
+            }
+            mins[level][bucket] = min;
+            maxs[level][bucket] = max;
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        levels = 1;
+        Arrays.fill(mins, null);
+        Arrays.fill(maxs, null);
+    }
+
+    /**
+     * Appends points covering samples in the x range to out. Samples are read from the level having the most
+     * buckets of at least one pixel width, each bucket gives its min and max, so at most about four points per
+     * pixel are added. Where no bucket of that level is complete yet (newest samples) lower levels are used.
+     * One sample beyond each end of the range is included so that lines leaving the plot keep their slope.
+     *
+     * @param lower  lower x bound
+     * @param upper  upper x bound
+     * @param pixels number of pixels the range spans
+     * @param out    list receiving points, not cleared
+     * @return number of added points
+     */
+    public int query(double lower, double upper, int pixels, PointList out) {
+        if (size == 0 || upper < lower) return 0;
+        final int first = (int) Math.max(0, Math.min(size - 1, Math.floor((lower - x0) / dx)));
+        final int last = (int) Math.max(0, Math.min(size - 1, Math.ceil((upper - x0) / dx)));
+        final int samplesPerPixel = (last - first + 1) / Math.max(1, pixels);
+
+        int level = 0;
+        while (level + 1 < levels && (2 << level) <= samplesPerPixel) {
+            level++;
+        }
+
+        final int sizeBefore = out.size();
+        int from = first;
+        for (; level >= 1 && from <= last; level--) {
+            final int complete = size >> level;
+            final int end = Math.min(last >> level, complete - 1);
+            for (int bucket = from >> level; bucket <= end; bucket++) {
+                // Both extremes at the bucket's center, drawn as a vertical stroke
+                final double x = x0 + ((bucket << level) + (1 << (level - 1)) - 0.5) * dx;
+                out.add(x, mins[level][bucket]);
+                out.add(x, maxs[level][bucket]);
+            }
+            from = Math.max(from, (end + 1) << level);
+        }
+        for (int i = from; i <= last; i++) {
+            out.add(x0 + i * dx, samples[i]);
+        }
+        return out.size() - sizeBefore;
+    }
+}
@@ -0,0 +1,160 @@
+package plot.render;
+
+import plot.PointList;
+
+import java.util.Arrays;
+
+/**
+ * {@link PointList} backed by growable primitive arrays, used by {@link plot.RenderBackend#CANVAS}.
+ * Optional change callback lets the owner schedule redraw.
+ * <p>
+ * Modifications synchronize on the list, so that {@link GeometryWorker} may read it from its own thread while
+ * holding the list's monitor.
+ */
+public class PrimitivePointList implements PointList {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private double[] xs;
+    private double[] ys;
+    private int size;
+    /**
+     * Number of points ever appended, not decreased by removals
+     */
+    private long appended;
+    private final Runnable onChange;
+
+    public PrimitivePointList() {
+        this(null);
+    }
+
+    /**
+     * @param onChange called after each modification, may be null
+     */
+    public PrimitivePointList(Runnable onChange) {
+        this.xs = new double[INITIAL_CAPACITY];
+        this.ys = new double[INITIAL_CAPACITY];
+        this.onChange = onChange;
+    }
+
+    /**
+     * Raw x values, valid in [0, size())
+     */
+    public double[] xs() {
+        return xs;
+    }
+
+    /**
+     * Raw y values, valid in [0, size())
+     */
+    public double[] ys() {
+        return ys;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of points ever appended to the list, not decreased by removals or clearing
+     */
+    public long getAppended() {
+        return appended;
+    }
+
+    @Override
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    @Override
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    @Override
+    public synchronized void add(double x, double y) {
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+        appended++;
+        changed();
+    }
+
+    @Override
+    public synchronized void setX(int index, double x) {
+        xs[index] = x;
+        changed();
+    }
+
+    @Override
+    public synchronized void setY(int index, double y) {
+        ys[index] = y;
+        changed();
+    }
+
+    @Override
+    public synchronized void removeFirst(int count) {
+        System.arraycopy(xs, count, xs, 0, size - count);
+        System.arraycopy(ys, count, ys, 0, size - count);
+        size -= count;
+        changed();
+    }
+
+    @Override
+    public synchronized void truncate(int size) {
+        this.size = size;
+        changed();
+    }
+
+    @Override
+    public synchronized void clear() {
+        size = 0;
+        changed();
+    }
+
+    @Override
+    public synchronized void addAll(PointList other) {
+        ensureCapacity(size + other.size());
+        if (other instanceof PrimitivePointList) {
+            PrimitivePointList o = (PrimitivePointList) other;
+            System.arraycopy(o.xs, 0, xs, size, o.size);
+            System.arraycopy(o.ys, 0, ys, size, o.size);
+            size += o.size;
+        } else {
+            for (int i = 0; i < other.size(); i++) {
+                xs[size] = other.getX(i);
+                ys[size] = other.getY(i);
+                size++;
+            }
+        }
+        appended += other.size();
+        changed();
+    }
+
+    @Override
+    public synchronized void addAll(double[] xs, double[] ys, int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(xs, 0, this.xs, size, count);
+        System.arraycopy(ys, 0, this.ys, size, count);
+        size += count;
+        appended += count;
+        changed();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= xs.length) return;
+
+        int newCapacity = Math.max(capacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+    }
+
+    private void changed() {
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+}
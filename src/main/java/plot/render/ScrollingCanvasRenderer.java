@@ -0,0 +1,193 @@
+package plot.render;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.StrokeLineJoin;
+import plot.Decimation;
+import plot.ExtendedNumberAxis;
+import plot.models.SeriesStore;
+
+/**
+ * Draws a scrolling screen of samples held in a bounded {@link SeriesStore}, where the oldest retained sample is at
+ * x0 and each next one is delta further right.
+ * <p>
+ * Samples are drawn once at fixed positions of an unbounded strip, sample with absolute index k (counting dropped
+ * ones) at k * delta pixels.
+ * Strip is shown through two plot-wide canvases placed side by side, scrolling only moves them left and only
+ * samples added since last render are drawn. Canvas which scrolled out on the left is cleared and placed after
+ * the other one. Everything is redrawn only when axes, plot size or delta change.
+ */
+public class ScrollingCanvasRenderer {
+
+    private static final double LINE_WIDTH = 2.0;
+
+    private final Group group;
+    private final Rectangle clip;
+    private final Canvas[] canvases;
+    /**
+     * Strip position of each canvas' left edge, in pixels
+     */
+    private final double[] starts;
+    private final M4Decimator m4Decimator;
+    // Absolute sample indices and values of a single channel, reused by every render
+    private double[] ks, vs, px, py;
+
+    /**
+     * Absolute index up to which samples were drawn, -1 to redraw everything
+     */
+    private long rendered;
+    // State the drawn samples are valid for
+    private double width, height, xLower, xUpper, yLower, yUpper, x0, delta;
+    private int numberOfChannels;
+
+    public ScrollingCanvasRenderer() {
+        canvases = new Canvas[]{new Canvas(), new Canvas()};
+        starts = new double[2];
+        clip = new Rectangle();
+        group = new Group(canvases);
+        group.setClip(clip);
+        // Zooming and panning handlers live on the plot background below
+        group.setMouseTransparent(true);
+        m4Decimator = new M4Decimator();
+        ks = vs = px = py = new double[0];
+        rendered = -1;
+    }
+
+    public Node getNode() {
+        return group;
+    }
+
+    /**
+     * Makes next render draw everything again
+     */
+    public void invalidate() {
+        rendered = -1;
+    }
+
+    /**
+     * Scrolls so that the store's oldest sample is at its x0 and draws samples added since last render
+     *
+     * @param screen     samples of the screen
+     * @param xAxis      horizontal axis
+     * @param yAxis      vertical axis
+     * @param decimation how points are reduced before drawing
+     */
+    public void render(SeriesStore screen, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis, Decimation decimation) {
+        final double width = xAxis.getWidth();
+        final double xOffset = xAxis.getDisplayPosition(screen.getX0());
+        final double dxPx = xAxis.getDisplayPosition(screen.getX0() + screen.getDelta()) - xOffset;
+        final long first = screen.getStart();
+        final long last = first + screen.size();
+        // Strip position shown at the left edge
+        final double offset = first * dxPx - xOffset;
+
+        final boolean full = rendered < 0 || rendered > last || rendered < first || !stateMatches(screen, xAxis, yAxis)
+                || (last - rendered) * dxPx >= width;
+        if (full) {
+            saveState(screen, xAxis, yAxis);
+            clip.setWidth(width);
+            clip.setHeight(yAxis.getHeight());
+            for (int i = 0; i < canvases.length; i++) {
+                canvases[i].setWidth(width);
+                canvases[i].setHeight(yAxis.getHeight());
+                canvases[i].getGraphicsContext2D().clearRect(0, 0, width, yAxis.getHeight());
+                starts[i] = Math.floor(offset) + i * width;
+            }
+        }
+
+        // Recycle canvases which scrolled out
+        for (int i = 0; i < canvases.length; i++) {
+            if (starts[i] + width > offset) continue;
+            starts[i] = Math.max(starts[0], starts[1]) + width;
+            canvases[i].getGraphicsContext2D().clearRect(0, 0, width, canvases[i].getHeight());
+        }
+        for (int i = 0; i < canvases.length; i++) {
+            canvases[i].setTranslateX(starts[i] - offset);
+        }
+
+        // Previous sample is drawn again to join the new ones
+        final long from = full ? first : Math.max(first, rendered - 1);
+        if (last - from >= 2 || !full && last - from >= 1) {
+            drawSamples(screen, from, last, dxPx, yAxis, decimation);
+        }
+        rendered = last;
+    }
+
+    /**
+     * Clears both canvases
+     */
+    public void clear() {
+        for (Canvas canvas : canvases) {
+            canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        }
+        rendered = -1;
+    }
+
+    private void drawSamples(SeriesStore screen, long from, long to, double dxPx, ExtendedNumberAxis yAxis, Decimation decimation) {
+        final int n = (int) (to - from);
+        final int offset = (int) (from - screen.getStart());
+        ensureCapacity(n);
+        for (int j = 0; j < n; j++) {
+            ks[j] = from + j;
+        }
+        final double yOffset = yAxis.getDisplayPosition(0.0);
+        final double yScale = yAxis.getDisplayPosition(1.0) - yOffset;
+        final int width = (int) Math.ceil(canvases[0].getWidth());
+
+        for (int c = 0; c < screen.getNumberOfChannels(); c++) {
+            screen.read(c, offset, n, vs);
+            for (int i = 0; i < canvases.length; i++) {
+                // Skip canvas the samples do not reach
+                final double left = from * dxPx - starts[i], right = (to - 1) * dxPx - starts[i];
+                if (right < -LINE_WIDTH || left > width + LINE_WIDTH) continue;
+
+                final GraphicsContext gc = canvases[i].getGraphicsContext2D();
+                gc.setLineWidth(LINE_WIDTH);
+                gc.setLineJoin(StrokeLineJoin.BEVEL);
+                gc.setStroke(CanvasSeriesRenderer.seriesColor(c));
+                // Indices scaled relative to the canvas keep pixel coordinates small
+                if (decimation != Decimation.NONE) {
+                    final int m = m4Decimator.decimate(ks, vs, 0, n, width, -starts[i], dxPx, yOffset, yScale);
+                    gc.strokePolyline(m4Decimator.xs(), m4Decimator.ys(), m);
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        px[j] = ks[j] * dxPx - starts[i];
+                        py[j] = yOffset + vs[j] * yScale;
+                    }
+                    gc.strokePolyline(px, py, n);
+                }
+            }
+        }
+    }
+
+    private boolean stateMatches(SeriesStore screen, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis) {
+        return width == xAxis.getWidth() && height == yAxis.getHeight()
+                && xLower == xAxis.getLowerBound() && xUpper == xAxis.getUpperBound()
+                && yLower == yAxis.getLowerBound() && yUpper == yAxis.getUpperBound()
+                && x0 == screen.getX0() && delta == screen.getDelta() && numberOfChannels == screen.getNumberOfChannels();
+    }
+
+    private void saveState(SeriesStore screen, ExtendedNumberAxis xAxis, ExtendedNumberAxis yAxis) {
+        width = xAxis.getWidth();
+        height = yAxis.getHeight();
+        xLower = xAxis.getLowerBound();
+        xUpper = xAxis.getUpperBound();
+        yLower = yAxis.getLowerBound();
+        yUpper = yAxis.getUpperBound();
+        x0 = screen.getX0();
+        delta = screen.getDelta();
+        numberOfChannels = screen.getNumberOfChannels();
+    }
+
+    private void ensureCapacity(int n) {
+        if (ks.length >= n) return;
+        final int capacity = Math.max(n, 2 * ks.length);
+        ks = new double[capacity];
+        vs = new double[capacity];
+        px = new double[capacity];
+        py = new double[capacity];
+    }
+}
@@ -0,0 +1,99 @@
+package plot.render;
+
+import java.util.Arrays;
+
+/**
+ * Pixel coordinates of all series prepared for one canvas size and axis ranges, filled by {@link GeometryWorker}
+ * and drawn by {@link CanvasSeriesRenderer}. Arrays are reused each time the geometry is filled again.
+ */
+public class SeriesGeometry {
+
+    private double width, height;
+    private int numberOfSeries;
+    private double[][] xs, ys;
+    private int[] sizes;
+    /**
+     * {@link PrimitivePointList#getAppended()} of each series when it was read
+     */
+    private long[] appended;
+
+    SeriesGeometry() {
+        xs = new double[0][];
+        ys = new double[0][];
+        sizes = new int[0];
+        appended = new long[0];
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public int getNumberOfSeries() {
+        return numberOfSeries;
+    }
+
+    /**
+     * @return x pixel coordinates of the series, valid in [0, size(series))
+     */
+    public double[] xs(int series) {
+        return xs[series];
+    }
+
+    /**
+     * @return y pixel coordinates of the series, valid in [0, size(series))
+     */
+    public double[] ys(int series) {
+        return ys[series];
+    }
+
+    public int size(int series) {
+        return sizes[series];
+    }
+
+    /**
+     * @return number of points ever appended to the series when it was read, points appended since are not included
+     */
+    public long getAppended(int series) {
+        return appended[series];
+    }
+
+    void reset(double width, double height, int numberOfSeries) {
+        this.width = width;
+        this.height = height;
+        this.numberOfSeries = numberOfSeries;
+        if (xs.length < numberOfSeries) {
+            xs = Arrays.copyOf(xs, numberOfSeries);
+            ys = Arrays.copyOf(ys, numberOfSeries);
+            sizes = Arrays.copyOf(sizes, numberOfSeries);
+            appended = Arrays.copyOf(appended, numberOfSeries);
+        }
+    }
+
+    /**
+     * Copies n pixel coordinates as the series' points
+     */
+    void set(int series, double[] px, double[] py, int n, long appended) {
+        ensureCapacity(series, n);
+        System.arraycopy(px, 0, xs[series], 0, n);
+        System.arraycopy(py, 0, ys[series], 0, n);
+        setSize(series, n, appended);
+    }
+
+    /**
+     * Makes arrays of the series hold at least n points, so that they can be filled in place
+     */
+    void ensureCapacity(int series, int n) {
+        if (xs[series] != null && xs[series].length >= n) return;
+        xs[series] = new double[Math.max(n, 16)];
+        ys[series] = new double[xs[series].length];
+    }
+
+    void setSize(int series, int n, long appended) {
+        sizes[series] = n;
+        this.appended[series] = appended;
+    }
+}
@@ -109,7 +109,7 @@ public class CursorManager {
             final ObservableList<CursorModel> currRefs = refMap.get(cursor);
             final CursorModel currRef = cursor.getReference();
 
-            D.info(CursorManager.this, "Recalculating references for: " + cursor + ", selected: " + currRef + ", available: [" + currRefs.stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
+            D.info(CursorManager.this, () -> "Recalculating references for: " + cursor + ", selected: " + currRef + ", available: [" + currRefs.stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
 
             final List<CursorModel> newRefs = cursorPool
                     .stream()
@@ -122,7 +122,7 @@ public class CursorManager {
                     .filter(r -> !currRefs.contains(r))
                     .forEach(currRefs::add);
 
-            D.info(CursorManager.this, "Recalculated references for: " + cursor + ", selected: " + currRef + ", available: [" + currRefs.stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
+            D.info(CursorManager.this, () -> "Recalculated references for: " + cursor + ", selected: " + currRef + ", available: [" + currRefs.stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
         }
     }
 
@@ -146,11 +146,11 @@ public class CursorManager {
         ListChangeListener<CursorModel> cursorPoolChanged = change -> {
             while (change.next()) {
                 if (change.wasAdded()) {
-                    D.info(CursorManager.this, "Cursor pool changed, added: [" + change.getAddedSubList().stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
+                    D.info(CursorManager.this, () -> "Cursor pool changed, added: [" + change.getAddedSubList().stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
                     recalculateReferences();
                 }
                 if (change.wasRemoved()) {
-                    D.info(CursorManager.this, "Cursor pool changed, removed [" + change.getRemoved().stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
+                    D.info(CursorManager.this, () -> "Cursor pool changed, removed [" + change.getRemoved().stream().map(CursorModel::getName).collect(Collectors.joining(",")) + "]");
                     recalculateReferences();
                 }
             }
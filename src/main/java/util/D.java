@@ -2,34 +2,149 @@ package util;
 
 import javafx.beans.value.ChangeListener;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.function.Supplier;
 
+/**
+ * Logging facade. Messages below the runtime level are discarded by a single check, enabled ones are queued to
+ * {@link LogWriter} and formatted and printed on its thread.
+ * <p>
+ * Parameterized variants take a pattern whose "{}" are replaced by the arguments, they build nothing on the calling
+ * thread. Supplier variants build the message only if its level is enabled. Hot paths passing primitives should
+ * check {@link #isDebugEnabled()} first, so that not even the arguments are boxed.
+ * <p>
+ * Throwable passed as the argument following the last one used by the pattern is printed with its stack trace,
+ * eg. {@code D.error(this, "Task failed", e)} or {@code D.error(this, "Reading {} failed", file, e)}.
+ */
 public class D {
-    private static final SimpleDateFormat m_format = new SimpleDateFormat("HH:mm:ss.SSS");
 
-    private static String timestamp() {
-        return m_format.format(new Date());
+    private static volatile LogLevel level = LogLevel.INFO;
+
+    // region Level
+
+    public static LogLevel getLevel() {
+        return level;
+    }
+
+    /**
+     * @param level lowest level printed, {@link LogLevel#OFF} discards everything
+     */
+    public static void setLevel(LogLevel level) {
+        D.level = level;
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.compareTo(D.level) >= 0;
     }
 
-    private static void log(String type, Object source, Object message) {
-        System.out.println("[" + type + "] [" + timestamp() + "] [" + Thread.currentThread().getId() + "] [" + source.getClass().getName() + "] " + message);
+    public static boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
     }
 
+    // endregion
+
+    @SuppressWarnings("unchecked")
     public static ChangeListener DEBUG_LISTENER(Object source) {
-        return (o, ov, nv) -> System.out.println("[INFO] [" + timestamp() + "] [" + Thread.currentThread().getId() + "] Value of: " + source + " changed from: " + ov + " to: " + nv);
+        return (o, ov, nv) -> {
+            if (isEnabled(LogLevel.INFO)) {
+                LogWriter.getInstance().publish(LogLevel.INFO, null, "Value of: {} changed from: {} to: {}", 3, source, ov, nv);
+            }
+        };
+    }
+
+    // region Debug
+
+    public static void debug(Object source, Object message) {
+        log(LogLevel.DEBUG, source, message);
+    }
+
+    public static void debug(Object source, Supplier<?> message) {
+        log(LogLevel.DEBUG, source, message);
     }
 
+    public static void debug(Object source, String pattern, Object arg0) {
+        log(LogLevel.DEBUG, source, pattern, 1, arg0, null, null);
+    }
+
+    public static void debug(Object source, String pattern, Object arg0, Object arg1) {
+        log(LogLevel.DEBUG, source, pattern, 2, arg0, arg1, null);
+    }
+
+    public static void debug(Object source, String pattern, Object arg0, Object arg1, Object arg2) {
+        log(LogLevel.DEBUG, source, pattern, 3, arg0, arg1, arg2);
+    }
+
+    // endregion
+
+    // region Info
+
     public static void info(Object source, Object message) {
-        log("INFO", source, message);
+        log(LogLevel.INFO, source, message);
+    }
+
+    public static void info(Object source, Supplier<?> message) {
+        log(LogLevel.INFO, source, message);
+    }
+
+    public static void info(Object source, String pattern, Object arg0) {
+        log(LogLevel.INFO, source, pattern, 1, arg0, null, null);
+    }
+
+    public static void info(Object source, String pattern, Object arg0, Object arg1) {
+        log(LogLevel.INFO, source, pattern, 2, arg0, arg1, null);
     }
 
+    public static void info(Object source, String pattern, Object arg0, Object arg1, Object arg2) {
+        log(LogLevel.INFO, source, pattern, 3, arg0, arg1, arg2);
+    }
+
+    // endregion
+
+    // region Warn
+
     public static void warn(Object source, Object message) {
-        log("WARN", source, message);
+        log(LogLevel.WARN, source, message);
+    }
+
+    public static void warn(Object source, String pattern, Object arg0) {
+        log(LogLevel.WARN, source, pattern, 1, arg0, null, null);
     }
 
+    public static void warn(Object source, String pattern, Object arg0, Object arg1) {
+        log(LogLevel.WARN, source, pattern, 2, arg0, arg1, null);
+    }
+
+    // endregion
+
+    // region Error
+
     public static void error(Object source, Object message) {
-        log("ERROR", source, message);
+        log(LogLevel.ERROR, source, message);
+    }
+
+    public static void error(Object source, String pattern, Object arg0) {
+        log(LogLevel.ERROR, source, pattern, 1, arg0, null, null);
     }
 
+    public static void error(Object source, String pattern, Object arg0, Object arg1) {
+        log(LogLevel.ERROR, source, pattern, 2, arg0, arg1, null);
+    }
+
+    // endregion
+
+    private static void log(LogLevel level, Object source, Object message) {
+        if (!isEnabled(level)) return;
+        LogWriter.getInstance().publish(level, source, "{}", 1, message, null, null);
+    }
+
+    private static void log(LogLevel level, Object source, Supplier<?> message) {
+        if (!isEnabled(level)) return;
+        // Built on the calling thread, it may read state confined to it
+        LogWriter.getInstance().publish(level, source, "{}", 1, message.get(), null, null);
+    }
+
+    private static void log(LogLevel level, Object source, String pattern, int numberOfArgs,
+                            Object arg0, Object arg1, Object arg2) {
+        if (!isEnabled(level)) return;
+        LogWriter.getInstance().publish(level, source, pattern, numberOfArgs, arg0, arg1, arg2);
+    }
 }
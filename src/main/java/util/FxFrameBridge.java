@@ -0,0 +1,258 @@
+package util;
+
+import javafx.beans.property.*;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Delivers frames from a {@link SignalSource} thread to the FX Application Thread without flooding it with tasks.
+ * Offered frames are accumulated until drained by the next pulse of {@link RenderScheduler} and at most one drain
+ * task is pending at any time, so when FX thread falls behind, all frames produced meanwhile are handed to the
+ * consumer in one go instead of piling up as separate runnables.
+ * <p>
+ * Sources in frame-swap mode ({@link SignalSourceBase#isFrameSwap()}) are not copied, their frames are taken by
+ * reference, handed to the consumer one by one in order and recycled afterwards.
+ * <p>
+ * Metrics are updated on the FX thread with each drain.
+ */
+public class FxFrameBridge {
+
+    /**
+     * Upper limit of the memory taken by a single accumulating frame, in bytes
+     */
+    private static final long FRAME_BUDGET = 16L << 20;
+    private static final int MIN_CAPACITY = 1024;
+    /**
+     * Initial capacity of the taken frames queues, large enough for the source's pool so they never grow
+     */
+    private static final int TAKEN_CAPACITY = 16;
+
+    private final Consumer<SampleFrame> consumer;
+    private final Object lock;
+
+    /**
+     * Number of frames handed to the consumer by the last drain
+     */
+    private final IntegerProperty queueDepth;
+    /**
+     * Highest {@link #queueDepth} seen so far
+     */
+    private final IntegerProperty maxQueueDepth;
+    /**
+     * Number of frames merged into an already pending drain instead of scheduling a new FX task
+     */
+    private final LongProperty coalescedFrames;
+    /**
+     * Number of FX tasks run
+     */
+    private final LongProperty drains;
+    /**
+     * Number of samples lost because consumer did not drain them before accumulator filled up
+     */
+    private final LongProperty droppedSamples;
+    /**
+     * Number of samples (per channel) handed to the consumer
+     */
+    private final LongProperty deliveredSamples;
+    /**
+     * Optional histogram of time from sample production until consumer finished with it
+     */
+    private final ObjectProperty<LatencyHistogram> latencyHistogram;
+
+    // Guarded by lock
+    private SampleFrame accumulator;
+    private SampleFrame drained;
+    /**
+     * Frames taken by reference from a frame-swap source and the source to return them to
+     */
+    private ArrayDeque<SampleFrame> taken, drainedTaken;
+    private SignalSourceBase takenFrom;
+    private boolean drainScheduled;
+    private int pendingFrames;
+    private long coalesced;
+
+    // region Properties
+
+    public ReadOnlyIntegerProperty queueDepthProperty() {
+        return queueDepth;
+    }
+    public ReadOnlyIntegerProperty maxQueueDepthProperty() {
+        return maxQueueDepth;
+    }
+    public ReadOnlyLongProperty coalescedFramesProperty() {
+        return coalescedFrames;
+    }
+    public ReadOnlyLongProperty drainsProperty() {
+        return drains;
+    }
+    public ReadOnlyLongProperty droppedSamplesProperty() {
+        return droppedSamples;
+    }
+    public ReadOnlyLongProperty deliveredSamplesProperty() {
+        return deliveredSamples;
+    }
+    public ObjectProperty<LatencyHistogram> latencyHistogramProperty() {
+        return latencyHistogram;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+    public long getCoalescedFrames() {
+        return coalescedFrames.get();
+    }
+    public long getDrains() {
+        return drains.get();
+    }
+    public long getDroppedSamples() {
+        return droppedSamples.get();
+    }
+    public long getDeliveredSamples() {
+        return deliveredSamples.get();
+    }
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram.get();
+    }
+
+    /**
+     * @param latencyHistogram histogram to record end-to-end latency of each delivered frame into, null to disable
+     */
+    public void setLatencyHistogram(LatencyHistogram latencyHistogram) {
+        this.latencyHistogram.set(latencyHistogram);
+    }
+
+    // endregion
+
+    /**
+     * @param consumer called on FX thread with all samples offered since previous call, frame must not be kept
+     */
+    public FxFrameBridge(Consumer<SampleFrame> consumer) {
+        this.consumer = consumer;
+        this.lock = new Object();
+        queueDepth = new SimpleIntegerProperty(0);
+        maxQueueDepth = new SimpleIntegerProperty(0);
+        coalescedFrames = new SimpleLongProperty(0L);
+        drains = new SimpleLongProperty(0L);
+        droppedSamples = new SimpleLongProperty(0L);
+        deliveredSamples = new SimpleLongProperty(0L);
+        latencyHistogram = new SimpleObjectProperty<>(null);
+        accumulator = new SampleFrame(0, 1);
+        drained = new SampleFrame(0, 1);
+        taken = new ArrayDeque<>(TAKEN_CAPACITY);
+        drainedTaken = new ArrayDeque<>(TAKEN_CAPACITY);
+    }
+
+    /**
+     * Appends source's current frame to the accumulated samples and schedules drain if there's none pending.
+     * Meant to be called from the source's thread on each data ready ping.
+     *
+     * @param source source which just pinged data ready
+     */
+    public void offer(SignalSource source) {
+        boolean schedule;
+        synchronized (lock) {
+            SampleFrame frame = source instanceof SignalSourceBase ? ((SignalSourceBase) source).takeFrame() : null;
+            if (frame != null) {
+                if (takenFrom != source) {
+                    recycleTaken(taken);
+                    takenFrom = (SignalSourceBase) source;
+                }
+                taken.addLast(frame);
+            } else {
+                ensureChannels(source.getNumberOfSeries());
+                source.copyFrameTo(accumulator);
+            }
+            pendingFrames++;
+            schedule = !drainScheduled;
+            if (schedule) {
+                drainScheduled = true;
+            } else {
+                coalesced++;
+            }
+        }
+        if (schedule) {
+            RenderScheduler.getInstance().schedule(this, this::drain);
+        }
+    }
+
+    /**
+     * Drops all accumulated samples, eg. when consumer was reset
+     */
+    public void clear() {
+        synchronized (lock) {
+            accumulator.clear();
+            recycleTaken(taken);
+            pendingFrames = 0;
+        }
+    }
+
+    private void drain() {
+        final SampleFrame frame;
+        final ArrayDeque<SampleFrame> frames;
+        final SignalSourceBase owner;
+        final int depth;
+        final long coalesced, dropped;
+        synchronized (lock) {
+            frame = accumulator;
+            accumulator = drained;
+            drained = frame;
+            frames = taken;
+            taken = drainedTaken;
+            drainedTaken = frames;
+            owner = takenFrom;
+            depth = pendingFrames;
+            pendingFrames = 0;
+            coalesced = this.coalesced;
+            // Both frames keep counting overwritten samples across swaps
+            dropped = frame.getOverwritten() + accumulator.getOverwritten();
+            drainScheduled = false;
+        }
+
+        queueDepth.set(depth);
+        maxQueueDepth.set(Math.max(depth, getMaxQueueDepth()));
+        coalescedFrames.set(coalesced);
+        drains.set(getDrains() + 1);
+        droppedSamples.set(dropped);
+
+        if (!frame.isEmpty()) {
+            deliver(frame);
+        }
+        // Safe, frame is not referenced by the offering side until next swap which happens on this thread
+        frame.clear();
+        // Same for the taken frames queue
+        SampleFrame next;
+        while ((next = frames.pollFirst()) != null) {
+            deliver(next);
+            owner.recycle(next);
+        }
+    }
+
+    private void deliver(SampleFrame frame) {
+        consumer.accept(frame);
+        deliveredSamples.set(getDeliveredSamples() + frame.size());
+        final LatencyHistogram histogram = getLatencyHistogram();
+        if (histogram != null) {
+            histogram.record(System.nanoTime() - frame.getTimestamp());
+        }
+    }
+
+    private void recycleTaken(ArrayDeque<SampleFrame> frames) {
+        SampleFrame frame;
+        while ((frame = frames.pollFirst()) != null) {
+            takenFrom.recycle(frame);
+        }
+    }
+
+    private void ensureChannels(int numberOfChannels) {
+        if (accumulator.getNumberOfChannels() == numberOfChannels) return;
+
+        int capacity = (int) Math.max(MIN_CAPACITY, FRAME_BUDGET / Double.BYTES / Math.max(1, numberOfChannels));
+        accumulator = new SampleFrame(numberOfChannels, capacity);
+        drained = new SampleFrame(numberOfChannels, capacity);
+        pendingFrames = 0;
+    }
+}
@@ -0,0 +1,75 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size histogram of latencies in nanoseconds with ~3% relative precision.
+ * Buckets are log-linear: each power of two range is split into 32 sub-buckets, so recording never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private final long[] counts;
+    private long count;
+    private long max;
+
+    public LatencyHistogram() {
+        counts = new long[(64 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS];
+    }
+
+    /**
+     * @param nanos latency, negative values are recorded as 0
+     */
+    public synchronized void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        counts[bucket(value)]++;
+        count++;
+        max = Math.max(max, value);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile percentile in [0, 100]
+     * @return upper bound of the bucket holding given percentile, in nanoseconds, 0 if nothing was recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = max = 0;
+    }
+
+    private static int bucket(long value) {
+        final int msb = 63 - Long.numberOfLeadingZeros(value | 1);
+        final int shift = Math.max(0, msb - (SUB_BUCKET_BITS - 1));
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long upperBound(int bucket) {
+        final int shift = bucket < SUB_BUCKETS ? 0 : bucket / HALF_SUB_BUCKETS - 1;
+        final long sub = bucket - shift * HALF_SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
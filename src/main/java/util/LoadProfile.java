@@ -0,0 +1,126 @@
+package util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Synthetic load to drive the application with, read from properties:
+ * <pre>
+ * rate=10000                    # samples per second per series
+ * channels=512                  # number of series
+ * burstInterval=0               # ms between bursts of samples, 0 for smooth generation
+ * duration=30                   # seconds to run before reporting and exiting
+ * waveforms=sine:2,square:1     # waveform:weight pairs, see {@link Waveform}
+ * stripes=1                     # channel stripes generated in parallel
+ * updateInterval=20             # ms between data ready pings
+ * </pre>
+ * Missing keys fall back to the defaults above.
+ */
+public class LoadProfile {
+
+    private final double rate;
+    private final int channels;
+    private final long burstInterval;
+    private final double duration;
+    private final Map<Waveform, Double> waveformMix;
+    private final int stripes;
+    private final long updateInterval;
+
+    /**
+     * @param properties profile keys, see class description
+     * @throws IllegalArgumentException if a value is malformed or out of range
+     */
+    public LoadProfile(Properties properties) {
+        rate = Double.parseDouble(properties.getProperty("rate", "10000"));
+        channels = Integer.parseInt(properties.getProperty("channels", "512"));
+        burstInterval = Long.parseLong(properties.getProperty("burstInterval", "0"));
+        duration = Double.parseDouble(properties.getProperty("duration", "30"));
+        waveformMix = parseWaveformMix(properties.getProperty("waveforms", "sine:1"));
+        stripes = Integer.parseInt(properties.getProperty("stripes", "1"));
+        updateInterval = Long.parseLong(properties.getProperty("updateInterval", "20"));
+
+        if (rate <= 0 || channels < 1 || burstInterval < 0 || duration <= 0 || stripes < 1 || updateInterval < 1) {
+            throw new IllegalArgumentException("Load profile values out of range: " + this);
+        }
+    }
+
+    /**
+     * @param file      properties file or null to use defaults
+     * @param overrides keys overriding those of the file
+     * @return load profile
+     * @throws IOException if file cannot be read
+     */
+    public static LoadProfile load(Path file, Map<String, String> overrides) throws IOException {
+        Properties properties = new Properties();
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        properties.putAll(overrides);
+        return new LoadProfile(properties);
+    }
+
+    private static Map<Waveform, Double> parseWaveformMix(String value) {
+        Map<Waveform, Double> mix = new EnumMap<>(Waveform.class);
+        for (String pair : value.split(",")) {
+            if (pair.trim().isEmpty()) continue;
+            String[] parts = pair.split(":");
+            double weight = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1.0;
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight of waveform: " + parts[0]);
+            }
+            mix.put(Waveform.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        return Collections.unmodifiableMap(mix);
+    }
+
+    /**
+     * Configures generator to produce this profile's load, generator is reset
+     *
+     * @param generator generator to configure
+     */
+    public void applyTo(SineSignalGenerator generator) {
+        generator.setPacingMode(PacingMode.CATCH_UP);
+        generator.setSampleRate(rate);
+        generator.setNumberOfSeries(channels);
+        generator.setBurstInterval(burstInterval);
+        generator.setWaveformMix(waveformMix);
+        generator.setStripes(stripes);
+        generator.setUpdateInterval(updateInterval);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+    public int getChannels() {
+        return channels;
+    }
+    public long getBurstInterval() {
+        return burstInterval;
+    }
+    public double getDuration() {
+        return duration;
+    }
+    public Map<Waveform, Double> getWaveformMix() {
+        return waveformMix;
+    }
+    public int getStripes() {
+        return stripes;
+    }
+    public long getUpdateInterval() {
+        return updateInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + rate + ", channels=" + channels + ", burstInterval=" + burstInterval + ", duration=" + duration
+                + ", waveforms=" + waveformMix + ", stripes=" + stripes + ", updateInterval=" + updateInterval;
+    }
+}
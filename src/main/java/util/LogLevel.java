@@ -0,0 +1,18 @@
+package util;
+
+/**
+ * Severity of a {@link D} message, messages below {@link D#getLevel()} are discarded before anything is built
+ */
+public enum LogLevel {
+    /**
+     * Per sample, per frame and per gesture details, disabled by default
+     */
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    /**
+     * Discards all messages when set as the level
+     */
+    OFF
+}
@@ -0,0 +1,173 @@
+package util;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Background writer of {@link D} messages. Callers only fill a pre-allocated slot of a ring with the message's
+ * level, time, thread, source class, pattern and arguments, so logging neither formats nor blocks on output on the
+ * calling thread. Writer thread formats the slots and prints them in batches.
+ * <p>
+ * Arguments are converted to strings by the writer thread, callers should pass values which do not change
+ * afterwards. When the writer falls behind and all slots are taken, messages are dropped and the number of dropped
+ * ones is printed once the writer catches up. Remaining messages are printed at shutdown.
+ * <p>
+ * A {@link Throwable} passed after the arguments used by the pattern is printed with its stack trace.
+ */
+class LogWriter {
+
+    private static final int CAPACITY = 4096;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    /**
+     * Single message, filled by a caller and read by the writer thread
+     */
+    private static class Slot {
+        LogLevel level;
+        long millis;
+        long threadId;
+        String source;
+        String pattern;
+        int numberOfArgs;
+        Object arg0, arg1, arg2;
+    }
+
+    private final Slot[] slots;
+    private final PrintStream out;
+    // Guarded by this
+    private long published, written, dropped;
+    private boolean writerWaiting;
+    // Guarded by flushLock, taken by the writer thread and the shutdown hook
+    private final Object flushLock;
+    private final StringBuilder builder;
+    private long droppedReported;
+
+    private LogWriter() {
+        slots = new Slot[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+        }
+        out = System.out;
+        flushLock = new Object();
+        builder = new StringBuilder(256);
+
+        final Thread writer = DaemonThreadFactory.INSTANCE.newThread(this::run);
+        writer.setName("log-writer");
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush));
+    }
+
+    /**
+     * Queues a message, pattern's "{}" are replaced by the arguments in order
+     */
+    synchronized void publish(LogLevel level, Object source, String pattern, int numberOfArgs,
+                              Object arg0, Object arg1, Object arg2) {
+        if (published - written == CAPACITY) {
+            dropped++;
+            return;
+        }
+        final Slot slot = slots[(int) (published % CAPACITY)];
+        slot.level = level;
+        slot.millis = System.currentTimeMillis();
+        slot.threadId = Thread.currentThread().getId();
+        slot.source = source == null ? null : source.getClass().getName();
+        slot.pattern = pattern;
+        slot.numberOfArgs = numberOfArgs;
+        slot.arg0 = arg0;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        published++;
+        if (writerWaiting) {
+            writerWaiting = false;
+            notify();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                while (written == published) {
+                    writerWaiting = true;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Prints all queued messages. Slots are formatted without holding the ring's monitor and given back only after,
+     * so callers are not blocked by formatting nor output.
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            final long from, end, droppedNow;
+            synchronized (this) {
+                from = written;
+                end = published;
+                droppedNow = dropped;
+            }
+            builder.setLength(0);
+            for (long i = from; i < end; i++) {
+                final Slot slot = slots[(int) (i % CAPACITY)];
+                format(slot);
+                slot.arg0 = slot.arg1 = slot.arg2 = null;
+            }
+            synchronized (this) {
+                written = end;
+            }
+            if (droppedNow != droppedReported) {
+                builder.append("[WARN] [").append(TIME_FORMAT.format(Instant.now()))
+                        .append("] Log writer fell behind, dropped ").append(droppedNow - droppedReported)
+                        .append(" messages\n");
+                droppedReported = droppedNow;
+            }
+            out.print(builder);
+            out.flush();
+        }
+    }
+
+    private void format(Slot slot) {
+        builder.append('[').append(slot.level).append("] [")
+                .append(TIME_FORMAT.format(Instant.ofEpochMilli(slot.millis))).append("] [")
+                .append(slot.threadId).append("] ");
+        if (slot.source != null) {
+            builder.append('[').append(slot.source).append("] ");
+        }
+        int from = 0;
+        int a = 0;
+        for (; a < slot.numberOfArgs; a++) {
+            final int at = slot.pattern.indexOf("{}", from);
+            if (at < 0) break;
+            builder.append(slot.pattern, from, at).append(arg(slot, a));
+            from = at + 2;
+        }
+        builder.append(slot.pattern, from, slot.pattern.length()).append('\n');
+        if (a < slot.numberOfArgs && arg(slot, a) instanceof Throwable) {
+            final StringWriter trace = new StringWriter();
+            ((Throwable) arg(slot, a)).printStackTrace(new PrintWriter(trace));
+            builder.append(trace);
+        }
+    }
+
+    private static Object arg(Slot slot, int index) {
+        return index == 0 ? slot.arg0 : index == 1 ? slot.arg1 : slot.arg2;
+    }
+
+    static LogWriter getInstance() {
+        return __Holder.INSTANCE;
+    }
+
+    private static class __Holder {
+        private static final LogWriter INSTANCE = new LogWriter();
+    }
+}
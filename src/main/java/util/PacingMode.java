@@ -0,0 +1,14 @@
+package util;
+
+public enum PacingMode {
+    /**
+     * One sample per tick, ticks are scheduled with fixed delay equal to the generator's delta.
+     * Real rate is always below the nominal one and cannot exceed 1 kHz.
+     */
+    FIXED_DELAY,
+    /**
+     * Number of due samples is computed from elapsed time on each wake-up and they are produced as a single block.
+     * Rate does not drift and is limited only by the producer's throughput.
+     */
+    CATCH_UP
+}
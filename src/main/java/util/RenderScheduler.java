@@ -0,0 +1,248 @@
+package util;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies pending scene changes (new data, axis ranges, cursor positions) once per pulse from an
+ * {@link AnimationTimer}, so they all land before the same layout pass instead of each one triggering its own.
+ * <p>
+ * Tasks are keyed, scheduling a task under a key which is already pending replaces it, so only the latest range
+ * of an axis or position of a cursor is applied. Essential tasks run every pulse. Deferrable tasks run only while
+ * the frame budget is not used up, the rest waits for a later pulse. Anything may be scheduled from any thread,
+ * tasks run on the FX thread. Timer runs only while there is something pending.
+ */
+public class RenderScheduler {
+
+    /**
+     * Times essential tasks scheduled while running a pulse are still run by it, the rest waits for the next one
+     */
+    private static final int MAX_ROUNDS = 4;
+
+    private final Object lock;
+    private final AnimationTimer timer;
+
+    // Guarded by lock, insertion ordered so that tasks run in the order they were first scheduled
+    private LinkedHashMap<Object, Runnable> essential;
+    private final LinkedHashMap<Object, Runnable> deferrable;
+    private boolean timerRunning;
+
+    // FX thread only
+    private LinkedHashMap<Object, Runnable> running;
+    private final List<Map.Entry<Object, Runnable>> deferrableBatch;
+
+    /**
+     * Time the tasks of a single pulse may take before deferrable ones are postponed, in ms
+     */
+    private final DoubleProperty frameBudget;
+    /**
+     * Time spent running tasks in the last pulse, in ms
+     */
+    private final DoubleProperty lastFrameTime;
+    /**
+     * Highest {@link #lastFrameTime} seen so far, in ms
+     */
+    private final DoubleProperty maxFrameTime;
+    /**
+     * Whether essential tasks of the last pulse alone took the whole budget
+     */
+    private final BooleanProperty overBudget;
+    /**
+     * Number of times a deferrable task was postponed to a later pulse
+     */
+    private final LongProperty deferredTasks;
+    /**
+     * Optional histogram of time spent running tasks per pulse, in ns
+     */
+    private final ObjectProperty<LatencyHistogram> frameTimeHistogram;
+
+    // region Properties
+
+    public DoubleProperty frameBudgetProperty() {
+        return frameBudget;
+    }
+    public ReadOnlyDoubleProperty lastFrameTimeProperty() {
+        return lastFrameTime;
+    }
+    public ReadOnlyDoubleProperty maxFrameTimeProperty() {
+        return maxFrameTime;
+    }
+    public ReadOnlyBooleanProperty overBudgetProperty() {
+        return overBudget;
+    }
+    public ReadOnlyLongProperty deferredTasksProperty() {
+        return deferredTasks;
+    }
+    public ReadOnlyObjectProperty<LatencyHistogram> frameTimeHistogramProperty() {
+        return frameTimeHistogram;
+    }
+
+    public double getFrameBudget() {
+        return frameBudget.get();
+    }
+    public double getLastFrameTime() {
+        return lastFrameTime.get();
+    }
+    public double getMaxFrameTime() {
+        return maxFrameTime.get();
+    }
+    public boolean isOverBudget() {
+        return overBudget.get();
+    }
+    public long getDeferredTasks() {
+        return deferredTasks.get();
+    }
+    public LatencyHistogram getFrameTimeHistogram() {
+        return frameTimeHistogram.get();
+    }
+
+    public void setFrameBudget(double frameBudget) {
+        if (frameBudget <= 0) {
+            D.error(RenderScheduler.this, "Cannot set frame budget <= 0");
+            return;
+        }
+        this.frameBudget.set(frameBudget);
+    }
+    /**
+     * @param frameTimeHistogram histogram to record time of each pulse to, null to stop recording
+     */
+    public void setFrameTimeHistogram(LatencyHistogram frameTimeHistogram) {
+        this.frameTimeHistogram.set(frameTimeHistogram);
+    }
+
+    // endregion
+
+    private RenderScheduler() {
+        lock = new Object();
+        essential = new LinkedHashMap<>();
+        running = new LinkedHashMap<>();
+        deferrable = new LinkedHashMap<>();
+        deferrableBatch = new ArrayList<>();
+
+        frameBudget = new SimpleDoubleProperty(8.0);
+        lastFrameTime = new SimpleDoubleProperty(0.0);
+        maxFrameTime = new SimpleDoubleProperty(0.0);
+        overBudget = new SimpleBooleanProperty(false);
+        deferredTasks = new SimpleLongProperty(0);
+        frameTimeHistogram = new SimpleObjectProperty<>(null);
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                pulse();
+            }
+        };
+    }
+
+    public static RenderScheduler getInstance() {
+        return __Holder.INSTANCE;
+    }
+
+    private static class __Holder {
+        private static final RenderScheduler INSTANCE = new RenderScheduler();
+    }
+
+    /**
+     * Runs task with the next pulse, replacing task pending under the same key
+     *
+     * @param key  identifies what the task updates, eg. the axis whose range it sets
+     * @param task task to run on FX thread
+     */
+    public void schedule(Object key, Runnable task) {
+        synchronized (lock) {
+            essential.put(key, task);
+            startTimer();
+        }
+    }
+
+    /**
+     * Runs task with the first pulse having some of its budget left, replacing task pending under the same key
+     *
+     * @param key  identifies what the task updates
+     * @param task task to run on FX thread
+     */
+    public void scheduleDeferrable(Object key, Runnable task) {
+        synchronized (lock) {
+            deferrable.put(key, task);
+            startTimer();
+        }
+    }
+
+    // Called with lock held
+    private void startTimer() {
+        if (timerRunning) return;
+        timerRunning = true;
+        if (Platform.isFxApplicationThread()) {
+            timer.start();
+        } else {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    private void pulse() {
+        final long start = System.nanoTime();
+        final long budget = (long) (getFrameBudget() * 1e6);
+
+        // Tasks scheduled by the running ones (eg. refresh on range change) run in the same pulse, up to a limit
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            final LinkedHashMap<Object, Runnable> tasks;
+            synchronized (lock) {
+                if (essential.isEmpty()) break;
+                tasks = essential;
+                essential = running;
+                running = tasks;
+            }
+            tasks.values().forEach(this::run);
+            tasks.clear();
+        }
+
+        final boolean over = System.nanoTime() - start > budget;
+        int postponed = 0;
+        synchronized (lock) {
+            deferrableBatch.addAll(deferrable.entrySet());
+        }
+        for (Map.Entry<Object, Runnable> entry : deferrableBatch) {
+            if (System.nanoTime() - start > budget) {
+                postponed++;
+                continue;
+            }
+            synchronized (lock) {
+                // Skip if it was replaced meanwhile, the replacement runs in its turn
+                if (!deferrable.remove(entry.getKey(), entry.getValue())) continue;
+            }
+            run(entry.getValue());
+        }
+        deferrableBatch.clear();
+
+        final long elapsed = System.nanoTime() - start;
+        lastFrameTime.set(elapsed / 1e6);
+        maxFrameTime.set(Math.max(getMaxFrameTime(), getLastFrameTime()));
+        overBudget.set(over);
+        deferredTasks.set(getDeferredTasks() + postponed);
+        final LatencyHistogram histogram = getFrameTimeHistogram();
+        if (histogram != null) {
+            histogram.record(elapsed);
+        }
+
+        synchronized (lock) {
+            if (essential.isEmpty() && deferrable.isEmpty()) {
+                timerRunning = false;
+                timer.stop();
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            D.error(RenderScheduler.this, "Scheduled task failed", e);
+        }
+    }
+}
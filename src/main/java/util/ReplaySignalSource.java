@@ -0,0 +1,276 @@
+package util;
+
+import javafx.beans.property.*;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays samples recorded in {@link SampleFileFormat} through a memory-mapped file, either in (scaled) real time
+ * or as fast as consumer accepts them. Meant for load testing of the plot models without generator limits.
+ */
+public class ReplaySignalSource extends SignalSourceBase {
+
+    /**
+     * Size of the file region mapped at once, in bytes
+     */
+    private static final long MAP_WINDOW = 64L << 20;
+    /**
+     * Upper limit of the memory taken by a single frame, in bytes
+     */
+    private static final long FRAME_BUDGET = 4L << 20;
+    /**
+     * How long producer backs off when consumer did not release any slot yet (max speed only), in nanoseconds
+     */
+    private static final long BACKOFF = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Replayed file, its header determines number of series and sample interval
+     */
+    private final ObjectProperty<Path> file;
+    private final IntegerProperty numberOfSeries;
+    /**
+     * Sample interval as recorded, in seconds
+     */
+    private final DoubleProperty sampleInterval;
+    /**
+     * Replay speed relative to the recorded rate, ignored when {@link #maxSpeed} is set
+     */
+    private final DoubleProperty rateMultiplier;
+    /**
+     * Whether samples are replayed as fast as consumer accepts them
+     */
+    private final BooleanProperty maxSpeed;
+    /**
+     * Whether replay starts over when end of data is reached
+     */
+    private final BooleanProperty loop;
+
+    private ExecutorService replayExecutor;
+
+    // region Properties
+
+    public ReadOnlyObjectProperty<Path> fileProperty() {
+        return file;
+    }
+    @Override
+    public ReadOnlyIntegerProperty numberOfSeriesProperty() {
+        return numberOfSeries;
+    }
+    @Override
+    public ReadOnlyDoubleProperty sampleIntervalProperty() {
+        return sampleInterval;
+    }
+    public ReadOnlyDoubleProperty rateMultiplierProperty() {
+        return rateMultiplier;
+    }
+    public ReadOnlyBooleanProperty maxSpeedProperty() {
+        return maxSpeed;
+    }
+    public BooleanProperty loopProperty() {
+        return loop;
+    }
+
+    public Path getFile() {
+        return file.get();
+    }
+    public double getRateMultiplier() {
+        return rateMultiplier.get();
+    }
+    public boolean isMaxSpeed() {
+        return maxSpeed.get();
+    }
+    public boolean isLoop() {
+        return loop.get();
+    }
+
+    /**
+     * Opens file and reads its header
+     *
+     * @param file file in {@link SampleFileFormat}
+     * @throws IOException if file cannot be read or is not a valid sample file
+     */
+    public void setFile(Path file) throws IOException {
+        final SampleFileFormat.Header header;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            header = SampleFileFormat.readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), SampleFileFormat.HEADER_SIZE)));
+        }
+        D.info(ReplaySignalSource.this, "Replaying: " + file + ", channels: " + header.numberOfChannels + ", delta: " + header.sampleInterval);
+
+        this.file.set(file);
+        this.numberOfSeries.set(header.numberOfChannels);
+        this.sampleInterval.set(header.sampleInterval);
+        reset();
+    }
+    public void setRateMultiplier(double rateMultiplier) {
+        if (rateMultiplier <= 0) {
+            D.error(ReplaySignalSource.this, "Cannot set rate multiplier <= 0");
+            return;
+        }
+        this.rateMultiplier.set(rateMultiplier);
+        this.maxSpeed.set(false);
+        reset();
+    }
+    public void setMaxSpeed(boolean maxSpeed) {
+        this.maxSpeed.set(maxSpeed);
+        reset();
+    }
+    public void setLoop(boolean loop) {
+        this.loop.set(loop);
+    }
+
+    // endregion Properties
+
+    public ReplaySignalSource() {
+        file = new SimpleObjectProperty<>(null);
+        numberOfSeries = new SimpleIntegerProperty(0);
+        sampleInterval = new SimpleDoubleProperty(1.0 / 1000.0);
+        rateMultiplier = new SimpleDoubleProperty(1.0);
+        maxSpeed = new SimpleBooleanProperty(false);
+        loop = new SimpleBooleanProperty(true);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (getFile() == null) {
+            D.error(ReplaySignalSource.this, "Cannot start, no file to replay");
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    protected int getFrameCapacity() {
+        int budgetCapacity = (int) (FRAME_BUDGET / Double.BYTES / Math.max(1, getNumberOfSeries()));
+        if (isMaxSpeed()) {
+            return Math.max(MIN_FRAME_CAPACITY, budgetCapacity);
+        }
+        return Math.min(getFrameCapacity(getRateMultiplier() / getSampleInterval()), Math.max(MIN_FRAME_CAPACITY, budgetCapacity));
+    }
+
+    @Override
+    protected void startProducer(SpscFrameQueue queue) {
+        final Path path = getFile();
+        final boolean maxSpeed = isMaxSpeed();
+        final double nanosPerSample = getSampleInterval() * 1e9 / getRateMultiplier();
+        final boolean loop = isLoop();
+
+        replayExecutor = Executors.newSingleThreadExecutor(DaemonThreadFactory.INSTANCE);
+        replayExecutor.execute(() -> replay(queue, path, maxSpeed, nanosPerSample, loop));
+    }
+
+    @Override
+    protected void stopProducer() {
+        replayExecutor.shutdownNow();
+    }
+
+    /**
+     * Producer, runs on replayExecutor until interrupted or end of data (when not looping).
+     *
+     * @param queue          queue to publish frames to
+     * @param path           replayed file
+     * @param maxSpeed       whether to replay as fast as possible, waiting for consumer instead of dropping frames
+     * @param nanosPerSample pacing when not at max speed
+     * @param loop           whether to start over at the end of data
+     */
+    private void replay(SpscFrameQueue queue, Path path, boolean maxSpeed, double nanosPerSample, boolean loop) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final int channels = queue.pending().getNumberOfChannels();
+            // Limit chunk so that pacing happens at least about every millisecond
+            final int maxChunk = maxSpeed ? Integer.MAX_VALUE : (int) Math.max(1, 1e6 / nanosPerSample);
+            final long startNanos = System.nanoTime();
+
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            long position = SampleFileFormat.HEADER_SIZE;
+            long replayed = 0, replayedInPass = 0;
+
+            while (!Thread.currentThread().isInterrupted()) {
+                int count = 0;
+                long blockSize = 0;
+                if (position + SampleFileFormat.BLOCK_HEADER_SIZE <= size) {
+                    if (window == null || position < windowStart || position + SampleFileFormat.BLOCK_HEADER_SIZE > windowStart + window.limit()) {
+                        windowStart = position;
+                        window = map(channel, windowStart, size, SampleFileFormat.BLOCK_HEADER_SIZE);
+                    }
+                    count = window.getInt((int) (position - windowStart));
+                    blockSize = SampleFileFormat.blockSize(channels, count);
+                }
+                if (count <= 0 || position + blockSize > size) {
+                    // End of data (or truncated block)
+                    if (!loop || replayedInPass == 0) break;
+                    position = SampleFileFormat.HEADER_SIZE;
+                    replayedInPass = 0;
+                    continue;
+                }
+                if (position + blockSize > windowStart + window.limit()) {
+                    windowStart = position;
+                    window = map(channel, windowStart, size, blockSize);
+                }
+
+                final int base = (int) (position - windowStart) + SampleFileFormat.BLOCK_HEADER_SIZE;
+                for (int done = 0; done < count; ) {
+                    if (!maxSpeed) {
+                        long waitNanos = startNanos + (long) (replayed * nanosPerSample) - System.nanoTime();
+                        if (waitNanos > 0) {
+                            LockSupport.parkNanos(waitNanos);
+                            if (Thread.currentThread().isInterrupted()) return;
+                        }
+                    }
+
+                    final SampleFrame pending = queue.pending();
+                    final int n = Math.min(Math.min(count - done, pending.remaining()), maxChunk);
+                    final int capacity = pending.getCapacity();
+                    for (int c = 0; c < channels; c++) {
+                        final double[] y = pending.channel(c);
+                        int slot = pending.writeSlot();
+                        int offset = base + (c * count + done) * Double.BYTES;
+                        for (int k = 0; k < n; k++, offset += Double.BYTES) {
+                            y[slot] = window.getDouble(offset);
+                            if (++slot == capacity) slot = 0;
+                        }
+                    }
+                    pending.commit(n);
+                    done += n;
+                    replayed += n;
+                    replayedInPass += n;
+
+                    if (maxSpeed) {
+                        // Rather wait for the consumer than drop frames
+                        while (queue.isFull()) {
+                            LockSupport.parkNanos(BACKOFF);
+                            if (Thread.currentThread().isInterrupted()) return;
+                        }
+                    }
+                    publishIfDue(queue);
+                }
+                position += blockSize;
+            }
+            // Hand over whatever is left
+            if (!queue.pending().isEmpty()) {
+                queue.publish();
+            }
+            D.info(ReplaySignalSource.this, "Replay finished, samples: " + replayed);
+        } catch (ClosedByInterruptException e) {
+            // Stopped while mapping
+        } catch (IOException e) {
+            D.error(ReplaySignalSource.this, "Replay failed", e);
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size, long minLength) throws IOException {
+        long length = Math.min(size - position, Math.max(MAP_WINDOW, minLength));
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        buffer.order(SampleFileFormat.BYTE_ORDER);
+        return buffer;
+    }
+}
@@ -0,0 +1,95 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of recorded sample files. File starts with a fixed size header:
+ * <pre>
+ *  offset  type    field
+ *  0       int     magic ("REJ6")
+ *  4       int     version
+ *  8       int     number of channels
+ *  12      int     reserved
+ *  16      double  sample interval (delta), in seconds
+ *  24      long    start time, epoch milliseconds
+ * </pre>
+ * followed by blocks, each made of an 8 byte block header (int number of samples, int reserved) and samples
+ * stored column-wise: all samples of channel 0, then all of channel 1 and so on. Block with 0 samples
+ * (eg. pre-allocated, not yet written space) marks the end of data. All values are little endian.
+ */
+public final class SampleFileFormat {
+
+    public static final int MAGIC = 0x52454A36;
+    public static final int VERSION = 1;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final int HEADER_SIZE = 32;
+    public static final int BLOCK_HEADER_SIZE = 8;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CHANNELS_OFFSET = 8;
+    private static final int SAMPLE_INTERVAL_OFFSET = 16;
+    private static final int START_TIME_OFFSET = 24;
+
+    /**
+     * Content of the file header
+     */
+    public static class Header {
+        public final int numberOfChannels;
+        public final double sampleInterval;
+        public final long startTime;
+
+        public Header(int numberOfChannels, double sampleInterval, long startTime) {
+            this.numberOfChannels = numberOfChannels;
+            this.sampleInterval = sampleInterval;
+            this.startTime = startTime;
+        }
+    }
+
+    private SampleFileFormat() {
+    }
+
+    /**
+     * @param numberOfChannels number of channels
+     * @param numberOfSamples  number of samples per channel
+     * @return size of the block in bytes, including block header
+     */
+    public static long blockSize(int numberOfChannels, int numberOfSamples) {
+        return BLOCK_HEADER_SIZE + (long) numberOfChannels * numberOfSamples * Double.BYTES;
+    }
+
+    /**
+     * Writes header at absolute position 0, buffer's position is not changed
+     */
+    public static void writeHeader(ByteBuffer buffer, Header header) {
+        buffer.order(BYTE_ORDER);
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(CHANNELS_OFFSET, header.numberOfChannels);
+        buffer.putDouble(SAMPLE_INTERVAL_OFFSET, header.sampleInterval);
+        buffer.putLong(START_TIME_OFFSET, header.startTime);
+    }
+
+    /**
+     * Reads header from absolute position 0, buffer's position is not changed
+     *
+     * @throws IOException if buffer does not start with a valid header
+     */
+    public static Header readHeader(ByteBuffer buffer) throws IOException {
+        buffer.order(BYTE_ORDER);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a sample file");
+        }
+        if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IOException("Unsupported sample file version: " + buffer.getInt(VERSION_OFFSET));
+        }
+        int numberOfChannels = buffer.getInt(CHANNELS_OFFSET);
+        double sampleInterval = buffer.getDouble(SAMPLE_INTERVAL_OFFSET);
+        if (numberOfChannels < 1 || !(sampleInterval > 0)) {
+            throw new IOException("Corrupted sample file header");
+        }
+        return new Header(numberOfChannels, sampleInterval, buffer.getLong(START_TIME_OFFSET));
+    }
+}
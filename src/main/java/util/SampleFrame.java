@@ -0,0 +1,298 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed capacity ring buffer of primitive samples, one {@code double[]} per channel.
+ * All channels share the same write index and read cursor, so a frame always holds
+ * the same number of samples for every channel (one "sample" = one value per channel).
+ * <p>
+ * When written past capacity the oldest samples are overwritten and the read cursor is moved accordingly.
+ * Not thread safe, hand-off between threads has to be done by the owner.
+ */
+public class SampleFrame {
+
+    /**
+     * samples[channel][slot]
+     */
+    private final double[][] samples;
+    private final int capacity;
+    /**
+     * Physical slot of the oldest unread sample
+     */
+    private int readPos;
+    /**
+     * Number of unread samples
+     */
+    private int size;
+    /**
+     * Total number of samples ever committed, index of the next sample to be written
+     */
+    private long writeIndex;
+    /**
+     * Number of samples lost because frame was written past its capacity
+     */
+    private long overwritten;
+    /**
+     * {@link System#nanoTime()} at which the oldest unread sample was committed, samples committed into a non-empty
+     * frame are not tracked individually so it's exact only for the first sample after the frame was emptied
+     */
+    private long timestamp;
+
+    public SampleFrame(int numberOfChannels, int capacity) {
+        if (numberOfChannels < 0) {
+            throw new IllegalArgumentException("Number of channels must be >= 0");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be >= 1");
+        }
+        this.capacity = capacity;
+        this.samples = new double[numberOfChannels][capacity];
+    }
+
+    // region Properties
+
+    public int getNumberOfChannels() {
+        return samples.length;
+    }
+    public int getCapacity() {
+        return capacity;
+    }
+    /**
+     * @return number of unread samples (per channel)
+     */
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    /**
+     * @return number of samples which may be written before the oldest ones start being overwritten
+     */
+    public int remaining() {
+        return capacity - size;
+    }
+    public long getWriteIndex() {
+        return writeIndex;
+    }
+    /**
+     * @return index (in terms of {@link #getWriteIndex()}) of the sample under the read cursor
+     */
+    public long getReadIndex() {
+        return writeIndex - size;
+    }
+    public long getOverwritten() {
+        return overwritten;
+    }
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    // endregion
+
+    /**
+     * @param channel channel index
+     * @param offset  offset from the read cursor, must be in [0, size())
+     * @return sample value
+     */
+    public double get(int channel, int offset) {
+        return samples[channel][slot(readPos + offset)];
+    }
+
+    /**
+     * Sets value of the pending (not yet committed) sample for the given channel.
+     * Sample becomes visible to the reader after {@link #commit()}.
+     *
+     * @param channel channel index
+     * @param value   sample value
+     */
+    public void set(int channel, double value) {
+        samples[channel][writeSlot()] = value;
+    }
+
+    /**
+     * Publishes pending sample (set via {@link #set(int, double)}) for all channels
+     */
+    public void commit() {
+        commit(1);
+    }
+
+    /**
+     * Publishes given number of pending samples written directly to {@link #channel(int)} arrays
+     * starting at {@link #writeSlot()} (wrapping at capacity).
+     *
+     * @param count number of samples to publish
+     */
+    public void commit(int count) {
+        if (size == 0 && count > 0) {
+            timestamp = System.nanoTime();
+        }
+        writeIndex += count;
+        size += count;
+        if (size > capacity) {
+            int lost = size - capacity;
+            overwritten += lost;
+            readPos = slot(readPos + lost % capacity);
+            size = capacity;
+        }
+    }
+
+    /**
+     * @return physical slot of the sample under the read cursor
+     */
+    public int readSlot() {
+        return readPos;
+    }
+
+    /**
+     * @return physical slot where next sample is written
+     */
+    public int writeSlot() {
+        return slot(readPos + size);
+    }
+
+    /**
+     * Raw storage of the given channel, meant for block writes/reads in tight loops.
+     * Logical sample order starts at read cursor and wraps at capacity.
+     *
+     * @param channel channel index
+     * @return backing array, length equal to capacity
+     */
+    public double[] channel(int channel) {
+        return samples[channel];
+    }
+
+    /**
+     * Advances read cursor
+     *
+     * @param count number of samples to skip, clamped to size()
+     */
+    public void skip(int count) {
+        count = Math.min(count, size);
+        readPos = slot(readPos + count);
+        size -= count;
+    }
+
+    /**
+     * Drops all unread samples, write index is preserved
+     */
+    public void clear() {
+        skip(size);
+    }
+
+    /**
+     * Drops all unread samples and resets indices and counters
+     */
+    public void reset() {
+        readPos = size = 0;
+        writeIndex = overwritten = timestamp = 0;
+    }
+
+    /**
+     * Appends all unread samples to the target frame, own read cursor is not moved.
+     *
+     * @param target frame with the same number of channels
+     */
+    public void copyTo(SampleFrame target) {
+        copyTo(target, 0, size);
+    }
+
+    /**
+     * Appends count unread samples starting at offset to the target frame, own read cursor is not moved.
+     *
+     * @param target frame with the same number of channels
+     * @param offset offset from the read cursor
+     * @param count  number of samples
+     */
+    public void copyTo(SampleFrame target, int offset, int count) {
+        if (target.getNumberOfChannels() != getNumberOfChannels()) {
+            throw new IllegalArgumentException("Frames differ in number of channels");
+        }
+        // Only newest samples would survive anyway
+        if (count > target.capacity) {
+            offset += count - target.capacity;
+            count = target.capacity;
+        }
+        final boolean wasEmpty = target.isEmpty();
+        int copied = 0;
+        while (copied < count) {
+            int src = slot(readPos + offset + copied);
+            int dst = target.writeSlot();
+            int chunk = Math.min(count - copied, Math.min(capacity - src, target.capacity - dst));
+            for (int c = 0; c < samples.length; c++) {
+                System.arraycopy(samples[c], src, target.samples[c], dst, chunk);
+            }
+            target.commit(chunk);
+            copied += chunk;
+        }
+        // Copied samples are as old as the source's ones
+        if (wasEmpty && count > 0) {
+            target.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Moves all unread samples to the target frame
+     *
+     * @param target frame with the same number of channels
+     */
+    public void drainTo(SampleFrame target) {
+        copyTo(target);
+        clear();
+    }
+
+    /**
+     * @return compact copy of unread samples
+     */
+    public SampleFrame copy() {
+        SampleFrame copy = new SampleFrame(getNumberOfChannels(), Math.max(1, size));
+        copyTo(copy);
+        return copy;
+    }
+
+    /**
+     * Adapter for the list based API, unread samples are boxed into freshly allocated lists.
+     *
+     * @return list of channels -> list of values
+     */
+    public List<List<Double>> toLists() {
+        List<List<Double>> lists = new ArrayList<>(samples.length);
+        for (int c = 0; c < samples.length; c++) {
+            List<Double> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(get(c, i));
+            }
+            lists.add(values);
+        }
+        return lists;
+    }
+
+    /**
+     * Adapter for the list based API
+     *
+     * @param data list of channels -> list of values, each channel must hold the same number of values
+     * @return frame holding all values
+     */
+    public static SampleFrame fromLists(List<List<Double>> data) {
+        int count = data.isEmpty() ? 0 : data.get(0).size();
+        for (List<Double> values : data) {
+            if (values.size() != count) {
+                throw new IllegalArgumentException("Samples for each series must be same size");
+            }
+        }
+        SampleFrame frame = new SampleFrame(data.size(), Math.max(1, count));
+        for (int i = 0; i < count; i++) {
+            for (int c = 0; c < data.size(); c++) {
+                frame.set(c, data.get(c).get(i));
+            }
+            frame.commit();
+        }
+        return frame;
+    }
+
+    private int slot(int position) {
+        return position >= capacity ? position - capacity : position;
+    }
+}
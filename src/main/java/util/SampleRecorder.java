@@ -0,0 +1,349 @@
+package util;
+
+import javafx.beans.property.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records frames of a {@link SignalSourceBase} to an append-only, memory-mapped file in {@link SampleFileFormat}.
+ * <p>
+ * Frames are offered by the source's update thread; offering only copies the frame into a pre-allocated slot of a
+ * lock-free queue so neither the producer nor FX thread ever waits for the disk. Recorder's own thread writes one
+ * block per offered frame into file space pre-allocated in large chunks. If the writer falls behind, offered frames
+ * are dropped and counted. Stopping does not wait for the disk either, the writer flushes and closes the file
+ * after the last queued frame.
+ * <p>
+ * Files are never overwritten: each {@link #start(int, double, int)} (the source restarts the recorder whenever it
+ * restarts, eg. on a parameter change) records into a new file, the given one first and numbered siblings of it
+ * (name-1.ext, name-2.ext, ...) after it, so every run stays a complete, replayable recording.
+ */
+public class SampleRecorder {
+
+    /**
+     * File grows (and is re-mapped) by this many bytes at once
+     */
+    private static final long PREALLOCATION = 64L << 20;
+    private static final int NUMBER_OF_SLOTS = 16;
+    /**
+     * How long writer sleeps when there's nothing to write, in nanoseconds
+     */
+    private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * Minimal window over which throughput is measured, in nanoseconds
+     */
+    private static final long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path file;
+    /**
+     * File of the current or last run
+     */
+    private Path currentFile;
+    private final BooleanProperty recording;
+    /**
+     * Number of bytes written to the file, including header
+     */
+    private final LongProperty bytesWritten;
+    /**
+     * Sustained write throughput, in bytes per second, measured over at least {@link #RATE_WINDOW}
+     */
+    private final DoubleProperty throughput;
+    /**
+     * Number of frames dropped because writer did not keep up
+     */
+    private final LongProperty droppedFrames;
+
+    /**
+     * Writes runs one after another, so a stopped run still being finished never overlaps the next one
+     */
+    private ExecutorService writeExecutor;
+    /**
+     * Run being recorded, null when stopped
+     */
+    private volatile Run run;
+
+    // region Properties
+
+    public ReadOnlyBooleanProperty recordingProperty() {
+        return recording;
+    }
+    public ReadOnlyLongProperty bytesWrittenProperty() {
+        return bytesWritten;
+    }
+    public ReadOnlyDoubleProperty throughputProperty() {
+        return throughput;
+    }
+    public ReadOnlyLongProperty droppedFramesProperty() {
+        return droppedFrames;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+    /**
+     * @return file of the current or last run, null if never started
+     */
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+    public boolean isRecording() {
+        return recording.get();
+    }
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+    public double getThroughput() {
+        return throughput.get();
+    }
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    private void setRecording(boolean recording) {
+        this.recording.set(recording);
+    }
+    private void setBytesWritten(long bytesWritten) {
+        this.bytesWritten.set(bytesWritten);
+    }
+    private void setThroughput(double throughput) {
+        this.throughput.set(throughput);
+    }
+    private void setDroppedFrames(long droppedFrames) {
+        this.droppedFrames.set(droppedFrames);
+    }
+
+    // endregion Properties
+
+    /**
+     * @param file file to record to, runs after the first one go to numbered siblings of it
+     */
+    public SampleRecorder(Path file) {
+        this.file = file;
+        recording = new SimpleBooleanProperty(false);
+        bytesWritten = new SimpleLongProperty(0L);
+        throughput = new SimpleDoubleProperty(0.0);
+        droppedFrames = new SimpleLongProperty(0L);
+    }
+
+    /**
+     * Creates a new file for this run, writes its header and starts the writer thread
+     *
+     * @param numberOfChannels number of channels of offered frames
+     * @param sampleInterval   time between samples, in seconds
+     * @param frameCapacity    maximal number of samples of an offered frame
+     * @throws IOException if file cannot be created
+     */
+    public synchronized void start(int numberOfChannels, double sampleInterval, int frameCapacity) throws IOException {
+        if (isRecording()) {
+            stop();
+        }
+
+        currentFile = nextFile();
+        D.info(SampleRecorder.this, "Starting recording to: {}", currentFile);
+
+        // Fails rather than truncating a file created meanwhile
+        final FileChannel channel = FileChannel.open(currentFile, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Run run;
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SampleFileFormat.HEADER_SIZE);
+            SampleFileFormat.writeHeader(header, new SampleFileFormat.Header(numberOfChannels, sampleInterval, System.currentTimeMillis()));
+            run = new Run(currentFile, channel, new SpscFrameQueue(NUMBER_OF_SLOTS, numberOfChannels, frameCapacity));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        setBytesWritten(SampleFileFormat.HEADER_SIZE);
+        setThroughput(0.0);
+        setDroppedFrames(0);
+
+        if (writeExecutor == null) {
+            writeExecutor = Executors.newSingleThreadExecutor(DaemonThreadFactory.INSTANCE);
+        }
+        writeExecutor.execute(run);
+        this.run = run;
+        setRecording(true);
+
+        D.info(SampleRecorder.this, "Recording started");
+    }
+
+    /**
+     * @return the given file if it does not exist yet, otherwise its first numbered sibling which does not
+     */
+    private Path nextFile() {
+        if (!Files.exists(file)) return file;
+
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        final String base = dot > 0 ? name.substring(0, dot) : name;
+        final String extension = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            final Path sibling = file.resolveSibling(base + "-" + i + extension);
+            if (!Files.exists(sibling)) return sibling;
+        }
+    }
+
+    /**
+     * Stops accepting frames and returns at once, writer flushes the queued ones and closes the file on its own.
+     * Pre-allocated but unused space which cannot be removed is left in the file, readers stop at its first (zero
+     * filled) block header.
+     */
+    public synchronized void stop() {
+        if (!isRecording()) return;
+        D.info(SampleRecorder.this, "Stopping recording");
+
+        run.stopRequested = true;
+        run = null;
+        setRecording(false);
+    }
+
+    /**
+     * Queues copy of all unread samples of the frame to be written as a single block.
+     * Never blocks, called by a single (update) thread only.
+     *
+     * @param frame frame to record, it's not modified
+     */
+    public void offer(SampleFrame frame) {
+        final Run run = this.run;
+        if (run == null || frame.isEmpty()) return;
+
+        final SpscFrameQueue queue = run.queue;
+        frame.copyTo(queue.pending());
+        if (!queue.publish()) {
+            setDroppedFrames(queue.getOverruns());
+        }
+    }
+
+    /**
+     * Single recording to a single file, written by the writer thread until stopped and everything queued is written
+     */
+    private class Run implements Runnable {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final SpscFrameQueue queue;
+        private volatile boolean stopRequested;
+
+        // Accessed by the writer thread only
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+        private long rateWindowNanos, rateWindowBytes;
+
+        Run(Path file, FileChannel channel, SpscFrameQueue queue) {
+            this.file = file;
+            this.channel = channel;
+            this.queue = queue;
+            position = SampleFileFormat.HEADER_SIZE;
+            rateWindowNanos = System.nanoTime();
+            rateWindowBytes = position;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    SampleFrame frame = queue.peek();
+                    if (frame == null) {
+                        if (stopRequested) break;
+                        LockSupport.parkNanos(IDLE_WAIT);
+                        continue;
+                    }
+                    writeBlock(frame);
+                    queue.release();
+                    updateStatistics();
+                }
+                if (window != null) {
+                    window.force();
+                }
+            } catch (IOException | RuntimeException e) {
+                D.error(SampleRecorder.this, "Recording to: {} failed: {}", file, e);
+            } finally {
+                window = null;
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    D.error(SampleRecorder.this, "Failed closing: {}: {}", file, e);
+                }
+            }
+            trim();
+            if (isReported()) {
+                setBytesWritten(position);
+            }
+            D.info(SampleRecorder.this, "Recording to: {} stopped, bytes written: {}", file, position);
+        }
+
+        /**
+         * Best effort removal of pre-allocated but unused space. The file may still be mapped until its buffers are
+         * collected and some systems refuse truncating it then; it is valid either way.
+         */
+        private void trim() {
+            try (FileChannel trimmed = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                trimmed.truncate(position);
+            } catch (IOException e) {
+                D.debug(SampleRecorder.this, "Unused space of: {} kept: {}", file, e);
+            }
+        }
+
+        private void writeBlock(SampleFrame frame) throws IOException {
+            final int channels = frame.getNumberOfChannels();
+            final int count = frame.size();
+            final long blockSize = SampleFileFormat.blockSize(channels, count);
+            if (window == null || position + blockSize > windowStart + window.capacity()) {
+                if (window != null) {
+                    window.force();
+                }
+                // Mapping past the end of file in READ_WRITE mode extends (pre-allocates) it
+                windowStart = position;
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(PREALLOCATION, blockSize));
+                window.order(SampleFileFormat.BYTE_ORDER);
+            }
+
+            final int offset = (int) (position - windowStart);
+            window.putInt(offset, count);
+            window.putInt(offset + 4, 0);
+            final ByteBuffer bytes = window.duplicate();
+            bytes.position(offset + SampleFileFormat.BLOCK_HEADER_SIZE);
+            final DoubleBuffer doubles = bytes.order(SampleFileFormat.BYTE_ORDER).asDoubleBuffer();
+
+            final int capacity = frame.getCapacity();
+            for (int c = 0; c < channels; c++) {
+                final double[] values = frame.channel(c);
+                final int start = frame.readSlot();
+                final int firstChunk = Math.min(count, capacity - start);
+                doubles.put(values, start, firstChunk);
+                doubles.put(values, 0, count - firstChunk);
+            }
+            position += blockSize;
+        }
+
+        /**
+         * @return whether this run's statistics are shown, ie. no later run has been started since
+         */
+        private boolean isReported() {
+            final Run current = SampleRecorder.this.run;
+            return current == null || current == this;
+        }
+
+        private void updateStatistics() {
+            if (!isReported()) return;
+            final long now = System.nanoTime();
+            setBytesWritten(position);
+            if (now - rateWindowNanos < RATE_WINDOW) return;
+
+            setThroughput((position - rateWindowBytes) * 1e9 / (now - rateWindowNanos));
+            rateWindowNanos = now;
+            rateWindowBytes = position;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package util;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyLongProperty;
+
+import java.util.List;
+
+/**
+ * Source of multi-series samples delivered in frames. Whenever new frame is ready {@link #dataReadyProperty()}
+ * is "pinged" (set to true and back to false) from the source's own thread, data may be then obtained via
+ * {@link #getFrame()} or {@link #getData()}.
+ */
+public interface SignalSource {
+
+    /**
+     * @return number of series in each frame, first level of data
+     */
+    ReadOnlyIntegerProperty numberOfSeriesProperty();
+
+    /**
+     * @return flag pinged each time new data is ready
+     */
+    ReadOnlyBooleanProperty dataReadyProperty();
+
+    /**
+     * @return whether source is currently running
+     */
+    ReadOnlyBooleanProperty runningProperty();
+
+    /**
+     * @return time between consecutive samples of a series, in seconds
+     */
+    ReadOnlyDoubleProperty sampleIntervalProperty();
+
+    /**
+     * @return number of frames lost because consumer did not keep up
+     */
+    ReadOnlyLongProperty overrunsProperty();
+
+    default int getNumberOfSeries() {
+        return numberOfSeriesProperty().get();
+    }
+
+    default boolean isRunning() {
+        return runningProperty().get();
+    }
+
+    default double getSampleInterval() {
+        return sampleIntervalProperty().get();
+    }
+
+    default long getOverruns() {
+        return overrunsProperty().get();
+    }
+
+    /**
+     * @return copy of samples which became ready with the last ping
+     */
+    SampleFrame getFrame();
+
+    /**
+     * Appends samples which became ready with the last ping to the target without allocating
+     *
+     * @param target frame with the same number of channels
+     */
+    default void copyFrameTo(SampleFrame target) {
+        getFrame().copyTo(target);
+    }
+
+    /**
+     * List based adapter of {@link #getFrame()}
+     *
+     * @return list of series -> values which became ready with the last ping
+     */
+    List<List<Double>> getData();
+
+    void start();
+
+    void stop();
+
+    void reset();
+}
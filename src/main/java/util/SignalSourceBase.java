@@ -0,0 +1,452 @@
+package util;
+
+import javafx.beans.property.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common part of signal sources: producer (implemented by subclasses) fills frames of a lock-free
+ * {@link SpscFrameQueue}, consumer (update()) periodically collects all published frames and pings listeners.
+ * <p>
+ * By default published frames are copied into a shared buffer readable via {@link #getFrame()}. In frame-swap mode
+ * each published frame is instead exchanged for a spare one from a small pool and handed to listeners by reference,
+ * see {@link #takeFrame()}, so that steady-state update neither copies nor allocates.
+ */
+public abstract class SignalSourceBase implements SignalSource {
+
+    protected static final int MIN_FRAME_CAPACITY = 64;
+    protected static final int MAX_FRAME_CAPACITY = 1 << 20;
+    protected static final int NUMBER_OF_SLOTS = 8;
+    /**
+     * Upper limit of the memory taken by a single frame, in bytes, matters for sources with hundreds of series
+     */
+    protected static final long FRAME_BUDGET = 8L << 20;
+    /**
+     * Minimal window over which achieved rate is measured, in nanoseconds
+     */
+    private static final long RATE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Indicates that data buffer is filled and ready
+     */
+    private final BooleanProperty dataReady;
+    /**
+     * Interval between data is ready and updated, in milliseconds
+     */
+    private final LongProperty updateInterval;
+    /**
+     * Whether data generation is currently running;
+     */
+    private final BooleanProperty running;
+    /**
+     * Number of produced frames dropped because update() did not keep up, refreshed on each update
+     */
+    private final LongProperty overruns;
+    /**
+     * Samples per second per series actually delivered, measured over at least {@link #RATE_WINDOW}
+     */
+    private final DoubleProperty achievedRate;
+    /**
+     * Optional recorder each delivered frame is offered to
+     */
+    private final ObjectProperty<SampleRecorder> recorder;
+    /**
+     * Whether frames are handed over by reference instead of being copied, takes effect on start
+     */
+    private final BooleanProperty frameSwap;
+
+    /**
+     * data[numberOfSeries][numberOfDataPoints]
+     * On each update contains NEW data
+     */
+    private SampleFrame data;
+    /**
+     * Guards {@link #data} which is written by update() and read by data consumers
+     */
+    private final Object dataLock;
+    /**
+     * Lock-free hand-off of produced samples from producer to update() (consumer)
+     */
+    private SpscFrameQueue queue;
+    /**
+     * Spare frames exchanged for published ones in frame-swap mode, null otherwise
+     */
+    private volatile ArrayBlockingQueue<SampleFrame> pool;
+    /**
+     * Frame delivered with the current ping until taken, written by update() thread only
+     */
+    private volatile SampleFrame delivered;
+    /**
+     * Time at which producer last published a frame, accessed by the producer thread only
+     */
+    private long lastPublishNanos;
+    /**
+     * Achieved rate measurement, accessed by update() only
+     */
+    private long rateWindowNanos, rateWindowSamples, deliveredSamples;
+
+    private ScheduledExecutorService updateExecutor;
+
+    // region Properties
+
+    @Override
+    public BooleanProperty dataReadyProperty() {
+        return dataReady;
+    }
+    public LongProperty updateIntervalProperty() {
+        return updateInterval;
+    }
+    @Override
+    public BooleanProperty runningProperty() {
+        return running;
+    }
+    @Override
+    public ReadOnlyLongProperty overrunsProperty() {
+        return overruns;
+    }
+    public ReadOnlyDoubleProperty achievedRateProperty() {
+        return achievedRate;
+    }
+    public ReadOnlyObjectProperty<SampleRecorder> recorderProperty() {
+        return recorder;
+    }
+    public BooleanProperty frameSwapProperty() {
+        return frameSwap;
+    }
+
+    public boolean isDataReady() {
+        return dataReady.get();
+    }
+    public long getUpdateInterval() {
+        return updateInterval.get();
+    }
+    /**
+     * In frame-swap mode returns samples of the current ping only when called from a dataReady listener
+     */
+    @Override
+    public List<List<Double>> getData() {
+        final SampleFrame delivered = this.delivered;
+        if (delivered != null) {
+            return delivered.toLists();
+        }
+        synchronized (dataLock) {
+            return data.toLists();
+        }
+    }
+    /**
+     * In frame-swap mode returns samples of the current ping only when called from a dataReady listener
+     */
+    @Override
+    public SampleFrame getFrame() {
+        final SampleFrame delivered = this.delivered;
+        if (delivered != null) {
+            return delivered.copy();
+        }
+        synchronized (dataLock) {
+            return data.copy();
+        }
+    }
+    /**
+     * In frame-swap mode copies samples of the current ping only when called from a dataReady listener
+     */
+    @Override
+    public void copyFrameTo(SampleFrame target) {
+        final SampleFrame delivered = this.delivered;
+        if (delivered != null) {
+            delivered.copyTo(target);
+            return;
+        }
+        synchronized (dataLock) {
+            data.copyTo(target);
+        }
+    }
+    public double getAchievedRate() {
+        return achievedRate.get();
+    }
+    public SampleRecorder getRecorder() {
+        return recorder.get();
+    }
+    public boolean isFrameSwap() {
+        return frameSwap.get();
+    }
+
+    public void setDataReady(boolean dataReady) {
+        this.dataReady.set(dataReady);
+    }
+    public void setUpdateInterval(long updateInterval_ms) {
+        if (updateInterval_ms < 0) {
+            D.error(this, "Cannot set negative update interval");
+            return;
+        }
+
+        this.updateInterval.set(updateInterval_ms);
+        reset();
+    }
+    private void setRunning(boolean running) {
+        this.running.set(running);
+    }
+    private void setOverruns(long overruns) {
+        this.overruns.set(overruns);
+    }
+    private void setAchievedRate(double achievedRate) {
+        this.achievedRate.set(achievedRate);
+    }
+    /**
+     * Sets recorder capturing delivered data, recording starts and stops together with the source.
+     *
+     * @param recorder recorder or null to stop recording
+     */
+    public void setRecorder(SampleRecorder recorder) {
+        boolean wasRunning = isRunning();
+        stop();
+        this.recorder.set(recorder);
+        if (wasRunning) start();
+    }
+    public void setFrameSwap(boolean frameSwap) {
+        this.frameSwap.set(frameSwap);
+        reset();
+    }
+
+    // endregion Properties
+
+    protected SignalSourceBase() {
+        dataReady = new SimpleBooleanProperty(false);
+        updateInterval = new SimpleLongProperty(1L);
+        running = new SimpleBooleanProperty(false);
+        overruns = new SimpleLongProperty(0L);
+        achievedRate = new SimpleDoubleProperty(0.0);
+        recorder = new SimpleObjectProperty<>(null);
+        frameSwap = new SimpleBooleanProperty(false);
+        data = new SampleFrame(0, 1);
+        dataLock = new Object();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            stop();
+        }
+
+        D.info(this, "Starting");
+
+        int capacity = getFrameCapacity();
+        queue = new SpscFrameQueue(NUMBER_OF_SLOTS, getNumberOfSeries(), capacity);
+        synchronized (dataLock) {
+            // Twice the frame capacity so that update() always has room for at least one frame
+            data = new SampleFrame(getNumberOfSeries(), 2 * capacity);
+        }
+        if (isFrameSwap()) {
+            ArrayBlockingQueue<SampleFrame> spares = new ArrayBlockingQueue<>(NUMBER_OF_SLOTS);
+            for (int i = 0; i < NUMBER_OF_SLOTS; i++) {
+                spares.add(new SampleFrame(getNumberOfSeries(), capacity));
+            }
+            pool = spares;
+        } else {
+            pool = null;
+        }
+        lastPublishNanos = rateWindowNanos = System.nanoTime();
+        rateWindowSamples = deliveredSamples = 0;
+        setOverruns(0);
+        setAchievedRate(0.0);
+
+        if (getRecorder() != null) {
+            try {
+                getRecorder().start(getNumberOfSeries(), getSampleInterval(), 2 * capacity);
+            } catch (IOException e) {
+                D.error(this, "Failed to start recording", e);
+            }
+        }
+
+        startProducer(queue);
+
+        updateExecutor = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.INSTANCE);
+        updateExecutor.scheduleWithFixedDelay(this::update, getUpdateInterval(), getUpdateInterval(), TimeUnit.MILLISECONDS);
+
+        setRunning(true);
+
+        D.info(this, "Started");
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!isRunning()) return;
+        D.info(this, "Stopping");
+
+        stopProducer();
+        updateExecutor.shutdownNow();
+        // Update in flight may still offer a frame to the recorder, let it finish before the recorder stops
+        try {
+            if (!updateExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                D.warn(this, "Update did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (getRecorder() != null) {
+            getRecorder().stop();
+        }
+        setDataReady(false);
+        setRunning(false);
+
+        D.info(this, "Stopped");
+    }
+
+    @Override
+    public synchronized void reset() {
+        boolean wasRunning = isRunning();
+        stop();
+        if (wasRunning) start();
+    }
+
+    /**
+     * Takes ownership of the frame delivered with the current ping. Meant to be called from a dataReady listener,
+     * by a single consumer, in frame-swap mode. Frame must not be modified and has to be given back via
+     * {@link #recycle(SampleFrame)} once consumed; frames nobody takes are recycled right after the ping.
+     *
+     * @return delivered frame or null if not in frame-swap mode or frame was already taken
+     */
+    public SampleFrame takeFrame() {
+        final SampleFrame frame = delivered;
+        delivered = null;
+        return frame;
+    }
+
+    /**
+     * Returns frame obtained by {@link #takeFrame()} to the pool of spare frames, may be called from any thread.
+     * Frames of a previous run which no longer fit are dropped.
+     *
+     * @param frame frame which won't be used by the caller anymore
+     */
+    public void recycle(SampleFrame frame) {
+        final ArrayBlockingQueue<SampleFrame> pool = this.pool;
+        final SpscFrameQueue queue = this.queue;
+        if (pool == null || frame.getNumberOfChannels() != getNumberOfSeries() || frame.getCapacity() != queue.getFrameCapacity()) {
+            return;
+        }
+        frame.clear();
+        pool.offer(frame);
+    }
+
+    /**
+     * @return capacity (number of samples per series) of the frames handed from producer to update()
+     */
+    protected abstract int getFrameCapacity();
+
+    /**
+     * Starts producer thread(s) filling {@link SpscFrameQueue#pending()} frames of the given queue.
+     * Producer should use {@link #publishIfDue(SpscFrameQueue)} to hand frames over.
+     *
+     * @param queue fresh queue sized by {@link #getNumberOfSeries()} and {@link #getFrameCapacity()}
+     */
+    protected abstract void startProducer(SpscFrameQueue queue);
+
+    protected abstract void stopProducer();
+
+    /**
+     * Frame is large enough to hold few update intervals worth of samples so that late publish does not lose data,
+     * unless that would exceed {@link #FRAME_BUDGET}
+     *
+     * @param rate samples per second per series
+     * @return frame capacity for the given rate
+     */
+    protected int getFrameCapacity(double rate) {
+        long samplesPerUpdate = (long) (getUpdateInterval() * rate / 1000.0) + 1;
+        long budget = FRAME_BUDGET / Double.BYTES / Math.max(1, getNumberOfSeries());
+        return (int) Math.min(Math.min(MAX_FRAME_CAPACITY, budget), Math.max(MIN_FRAME_CAPACITY, 4 * samplesPerUpdate));
+    }
+
+    /**
+     * Publishes pending frame when update interval elapsed since previous publish or frame is full.
+     * Called from the producer thread only.
+     *
+     * @param queue queue passed to {@link #startProducer(SpscFrameQueue)}
+     */
+    protected void publishIfDue(SpscFrameQueue queue) {
+        long now = System.nanoTime();
+        if (queue.pending().remaining() == 0 || now - lastPublishNanos >= TimeUnit.MILLISECONDS.toNanos(getUpdateInterval())) {
+            queue.publish();
+            lastPublishNanos = now;
+        }
+    }
+
+    /**
+     * Consumer, runs on updateExecutor only. Collects all frames published since previous update.
+     * Frames which don't fit are left in the queue for the next update.
+     */
+    private void update() {
+        final ArrayBlockingQueue<SampleFrame> pool = this.pool;
+        if (pool != null) {
+            updateSwap(pool);
+            return;
+        }
+
+        SampleFrame frame = queue.peek();
+        // Might happen that there's nothing to add (updateInterval < delta)
+        if (frame == null) return;
+
+        synchronized (dataLock) {
+            data.clear();
+            while (frame != null && frame.size() <= data.remaining()) {
+                frame.copyTo(data);
+                queue.release();
+                frame = queue.peek();
+            }
+            deliveredSamples += data.size();
+        }
+        // Only this thread modifies data, no need to hold the lock for reading
+        final SampleRecorder recorder = getRecorder();
+        if (recorder != null && recorder.isRecording()) {
+            recorder.offer(data);
+        }
+        setOverruns(queue.getOverruns());
+        updateAchievedRate();
+
+        //D.info(this, "Update triggered, ready: " + getNumberOfSeries() + " series, each: " + data.size() + " points");
+
+        // Don't want to create event, just "ping" listeners
+        setDataReady(true);
+        setDataReady(false);
+    }
+
+    /**
+     * Frame-swap variant of update(), each published frame is exchanged for a spare one and delivered with its own ping.
+     * When all spare frames are held by consumers the rest is left in the queue for the next update.
+     */
+    private void updateSwap(ArrayBlockingQueue<SampleFrame> pool) {
+        SampleFrame spare;
+        while (queue.peek() != null && (spare = pool.poll()) != null) {
+            final SampleFrame frame = queue.exchange(spare);
+            queue.release();
+            deliveredSamples += frame.size();
+
+            final SampleRecorder recorder = getRecorder();
+            if (recorder != null && recorder.isRecording()) {
+                recorder.offer(frame);
+            }
+
+            delivered = frame;
+            setDataReady(true);
+            setDataReady(false);
+            if (delivered != null) {
+                delivered = null;
+                recycle(frame);
+            }
+        }
+        setOverruns(queue.getOverruns());
+        updateAchievedRate();
+    }
+
+    private void updateAchievedRate() {
+        final long now = System.nanoTime();
+        if (now - rateWindowNanos < RATE_WINDOW) return;
+
+        setAchievedRate((deliveredSamples - rateWindowSamples) * 1e9 / (now - rateWindowNanos));
+        rateWindowNanos = now;
+        rateWindowSamples = deliveredSamples;
+    }
+}
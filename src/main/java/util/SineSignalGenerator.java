@@ -1,18 +1,33 @@
 package util;
 
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
-public class SineSignalGenerator {
+public class SineSignalGenerator extends SignalSourceBase {
 
     private static final double TWO_PI = Math.PI * 2.0;
+    /**
+     * How often producer wakes up in {@link PacingMode#CATCH_UP}, in milliseconds
+     */
+    private static final long CATCH_UP_WAKE_INTERVAL = 1L;
+
+    private static final double AMPLITUDE = 3.0;
+
     private static final Random random = new Random(123L);
     private static double noise(double magnitude) {
         return random.nextDouble() * magnitude * 0.5;
@@ -22,79 +37,173 @@ public class SineSignalGenerator {
      * Number of series to generate, first level of data
      */
     private final IntegerProperty numberOfSeries;
-    /**
-     * Indicates that data buffer is filled and ready
-     */
-    private final BooleanProperty dataReady;
     /**
      * Data x-delta, in milliseconds
      */
     private final LongProperty delta;
+    private final LongProperty period;
     /**
-     * Interval between data is ready and updated, in milliseconds
+     * How generation is paced, see {@link PacingMode}
      */
-    private final LongProperty updateInterval;
+    private final ObjectProperty<PacingMode> pacingMode;
     /**
-     * Whether data generation is currently running;
+     * Samples per second per series in {@link PacingMode#CATCH_UP}, in {@link PacingMode#FIXED_DELAY} delta is used
      */
-    private final BooleanProperty running;
-    private final LongProperty period;
+    private final DoubleProperty sampleRate;
+    /**
+     * Samples per second per series the generator aims for in the current pacing mode
+     */
+    private final DoubleProperty nominalRate;
+    /**
+     * Time between consecutive samples following from nominal rate, in seconds
+     */
+    private final DoubleProperty sampleInterval;
+    /**
+     * Whether samples are synthesized by {@link SineSynthesizer} (phase rotation) instead of Math.sin per sample
+     */
+    private final BooleanProperty fastSynthesis;
+    /**
+     * Number of fixed channel stripes each block is split into and generated in parallel, 1 generates all series
+     * on the producer thread
+     */
+    private final IntegerProperty stripes;
+    /**
+     * Executor running all stripes but the first one (which runs on the producer thread),
+     * {@link ForkJoinPool#commonPool()} if null
+     */
+    private final ObjectProperty<Executor> stripeExecutor;
+    /**
+     * Relative weight of each waveform, series are assigned waveforms in these proportions, all sines if empty
+     */
+    private final ObjectProperty<Map<Waveform, Double>> waveformMix;
+    /**
+     * In {@link PacingMode#CATCH_UP} due samples are generated in bursts every burstInterval instead of every
+     * wake-up, in milliseconds, 0 for smooth generation
+     */
+    private final LongProperty burstInterval;
 
     /**
-     * data[numberOfSeries][numberOfDataPoints]
-     * On each update contains NEW data
+     * Time at which generation started, used to compute number of due samples in {@link PacingMode#CATCH_UP}
+     */
+    private long startNanos;
+    /**
+     * Time of the last burst, accessed by the producer thread only
      */
-    private final List<List<Double>> data;
-    private final List<List<Double>> buffer;
+    private long lastBurstNanos;
     /**
-     * These two are only for debugging/logging purposes
+     * Index of the next sample to generate, written by the producer thread only
      */
-    private long dataIdx, bufferIdx;
+    private volatile long dataIdx;
+    /**
+     * Number of due samples (per series) skipped in {@link PacingMode#CATCH_UP} because producer fell too far behind,
+     * written by the producer thread only
+     */
+    private volatile long skippedSamples;
+    /**
+     * Number of stripes of the current block not finished yet
+     */
+    private final AtomicInteger unfinishedStripes;
+    private Thread producerThread;
+    /**
+     * Whether rejection of a stripe by the executor was already reported, producer thread only
+     */
+    private boolean stripeRejected;
+    /**
+     * Parameters of the block being generated, written by the producer before stripes are started
+     */
+    private SampleFrame blockFrame;
+    private int blockSlot, blockCount;
+    private long blockFirstIdx;
+    private double blockW;
+    private boolean blockFast;
 
-    private ScheduledExecutorService updateExecutor;
     private ScheduledExecutorService generateExecutor;
 
     // region Properties
 
+    @Override
     public IntegerProperty numberOfSeriesProperty() {
         return numberOfSeries;
     }
-    public BooleanProperty dataReadyProperty() {
-        return dataReady;
-    }
     public LongProperty deltaProperty() {
         return delta;
     }
-    public LongProperty updateIntervalProperty() {
-        return updateInterval;
-    }
-    public BooleanProperty runningProperty() {
-        return running;
-    }
     public LongProperty periodProperty() {
         return period;
     }
+    public ObjectProperty<PacingMode> pacingModeProperty() {
+        return pacingMode;
+    }
+    public DoubleProperty sampleRateProperty() {
+        return sampleRate;
+    }
+    public ReadOnlyDoubleProperty nominalRateProperty() {
+        return nominalRate;
+    }
+    @Override
+    public ReadOnlyDoubleProperty sampleIntervalProperty() {
+        return sampleInterval;
+    }
+    public BooleanProperty fastSynthesisProperty() {
+        return fastSynthesis;
+    }
+    public IntegerProperty stripesProperty() {
+        return stripes;
+    }
+    public ObjectProperty<Executor> stripeExecutorProperty() {
+        return stripeExecutor;
+    }
+    public ReadOnlyObjectProperty<Map<Waveform, Double>> waveformMixProperty() {
+        return waveformMix;
+    }
+    public LongProperty burstIntervalProperty() {
+        return burstInterval;
+    }
 
+    @Override
     public int getNumberOfSeries() {
         return numberOfSeries.get();
     }
-    public boolean isDataReady() {
-        return dataReady.get();
-    }
     public long getDelta() {
         return delta.get();
     }
-    public long getUpdateInterval() {
-        return updateInterval.get();
+    public long getPeriod() {
+        return period.get();
+    }
+    public PacingMode getPacingMode() {
+        return pacingMode.get();
     }
-    public synchronized List<List<Double>> getData() {
-        return data;
+    public double getSampleRate() {
+        return sampleRate.get();
     }
-    public boolean isRunning() {
-        return running.get();
+    public double getNominalRate() {
+        return nominalRate.get();
     }
-    public long getPeriod() {
-        return period.get();
+    @Override
+    public double getSampleInterval() {
+        return sampleInterval.get();
+    }
+    public boolean isFastSynthesis() {
+        return fastSynthesis.get();
+    }
+    public int getStripes() {
+        return stripes.get();
+    }
+    public Executor getStripeExecutor() {
+        return stripeExecutor.get();
+    }
+    public Map<Waveform, Double> getWaveformMix() {
+        return waveformMix.get();
+    }
+    public long getBurstInterval() {
+        return burstInterval.get();
+    }
+    /**
+     * @return number of due samples (per series) skipped since start because producer fell too far behind, they
+     * never reach the queue so they are not counted by {@link #getOverruns()}
+     */
+    public long getSkippedSamples() {
+        return skippedSamples;
     }
 
     public void setNumberOfSeries(int numberOfSeries) {
@@ -106,9 +215,6 @@ public class SineSignalGenerator {
         this.numberOfSeries.set(numberOfSeries);
         reset();
     }
-    public void setDataReady(boolean dataReady) {
-        this.dataReady.set(dataReady);
-    }
     public void setDelta(long delta_ms) {
         if (delta_ms < 0) {
             D.error(SineSignalGenerator.this, "Cannot set negative delta");
@@ -118,118 +224,345 @@ public class SineSignalGenerator {
         this.delta.set(delta_ms);
         reset();
     }
-    public void setUpdateInterval(long updateInterval_ms) {
-        if (updateInterval_ms < 0) {
-            D.error(SineSignalGenerator.this, "Cannot set negative update interval");
+    public void setPeriod(long period_ms) {
+        if (period_ms < 1) {
+            D.error(SineSignalGenerator.this, "Cannot set period < 1");
+            return;
+        }
+        this.period.set(period_ms);
+    }
+    public void setPacingMode(PacingMode pacingMode) {
+        if (pacingMode == null) {
+            D.error(SineSignalGenerator.this, "Cannot set null pacing mode");
+            return;
+        }
+        this.pacingMode.set(pacingMode);
+        reset();
+    }
+    public void setSampleRate(double sampleRate_hz) {
+        if (sampleRate_hz <= 0) {
+            D.error(SineSignalGenerator.this, "Cannot set sample rate <= 0");
             return;
         }
-
-        this.updateInterval.set(updateInterval_ms);
+        this.sampleRate.set(sampleRate_hz);
         reset();
     }
-    private void setRunning(boolean running) {
-        this.running.set(running);
+    public void setFastSynthesis(boolean fastSynthesis) {
+        this.fastSynthesis.set(fastSynthesis);
     }
-    public void setPeriod(long period_ms) {
-        if (period_ms < 1) {
-            D.error(SineSignalGenerator.this, "Cannot set period < 1");
+    public void setStripes(int stripes) {
+        if (stripes < 1) {
+            D.error(SineSignalGenerator.this, "Cannot set number of stripes < 1");
             return;
         }
-        this.period.set(period_ms);
+        this.stripes.set(stripes);
+        reset();
+    }
+    public void setStripeExecutor(Executor stripeExecutor) {
+        this.stripeExecutor.set(stripeExecutor);
+        reset();
+    }
+    /**
+     * @param waveformMix relative weight of each waveform, weights must not be negative; null or empty for sines only
+     */
+    public void setWaveformMix(Map<Waveform, Double> waveformMix) {
+        Map<Waveform, Double> mix = new EnumMap<>(Waveform.class);
+        if (waveformMix != null) {
+            for (Map.Entry<Waveform, Double> e : waveformMix.entrySet()) {
+                if (e.getValue() < 0) {
+                    D.error(SineSignalGenerator.this, "Cannot set negative weight of: " + e.getKey());
+                    return;
+                }
+                mix.put(e.getKey(), e.getValue());
+            }
+        }
+        this.waveformMix.set(mix);
+        reset();
+    }
+    public void setBurstInterval(long burstInterval_ms) {
+        if (burstInterval_ms < 0) {
+            D.error(SineSignalGenerator.this, "Cannot set negative burst interval");
+            return;
+        }
+        this.burstInterval.set(burstInterval_ms);
     }
 
     // endregion Properties
 
     public SineSignalGenerator() {
         numberOfSeries = new SimpleIntegerProperty(0);
-        dataReady = new SimpleBooleanProperty(false);
         delta = new SimpleLongProperty(1L);
-        updateInterval = new SimpleLongProperty(1L);
-        running = new SimpleBooleanProperty(false);
-        buffer = new ArrayList<>();
-        data = new ArrayList<>();
         period = new SimpleLongProperty(random.nextLong() % 2000 + 3000);
+        pacingMode = new SimpleObjectProperty<>(PacingMode.FIXED_DELAY);
+        sampleRate = new SimpleDoubleProperty(1000.0);
+        nominalRate = new SimpleDoubleProperty();
+        nominalRate.bind(Bindings.createDoubleBinding(
+                () -> getPacingMode() == PacingMode.CATCH_UP ? getSampleRate() : 1000.0 / Math.max(1L, getDelta()),
+                pacingMode, sampleRate, delta));
+        sampleInterval = new SimpleDoubleProperty();
+        sampleInterval.bind(Bindings.createDoubleBinding(() -> 1.0 / getNominalRate(), nominalRate));
+        fastSynthesis = new SimpleBooleanProperty(true);
+        stripes = new SimpleIntegerProperty(1);
+        stripeExecutor = new SimpleObjectProperty<>(null);
+        waveformMix = new SimpleObjectProperty<>(new EnumMap<>(Waveform.class));
+        burstInterval = new SimpleLongProperty(0L);
+        unfinishedStripes = new AtomicInteger();
     }
 
-    public synchronized void start() {
-        if (isRunning()) {
-            stop();
-        }
-
-        D.info(SineSignalGenerator.this, "Starting");
+    @Override
+    protected int getFrameCapacity() {
+        return getFrameCapacity(getNominalRate());
+    }
 
-        buffer.clear();
-        data.clear();
-        for (int i = 0; i < getNumberOfSeries(); i++) {
-            buffer.add(new ArrayList<>());
-            data.add(new ArrayList<>());
+    @Override
+    protected void startProducer(SpscFrameQueue queue) {
+        dataIdx = 0;
+        skippedSamples = 0;
+        startNanos = lastBurstNanos = System.nanoTime();
+        final int numOfSeries = queue.pending().getNumberOfChannels();
+        final double[] phaseOffsets = new double[numOfSeries];
+        for (int i = 0; i < numOfSeries; i++) {
+            phaseOffsets[i] = i * TWO_PI / (numOfSeries + 1); // +1 to have it not totally symmetric
+        }
+        final Waveform[] waveforms = assignWaveforms(numOfSeries);
+        final int numOfStripes = Math.max(1, Math.min(getStripes(), numOfSeries));
+        // Queue and stripes of this run are captured by its tasks only, so that nothing of a stopped run is shared
+        final ChannelStripe[] channelStripes = new ChannelStripe[numOfStripes];
+        for (int s = 0; s < numOfStripes; s++) {
+            channelStripes[s] = new ChannelStripe(phaseOffsets, waveforms, s * numOfSeries / numOfStripes, (s + 1) * numOfSeries / numOfStripes);
         }
-        dataIdx = bufferIdx = 0;
 
         generateExecutor = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.INSTANCE);
-        generateExecutor.scheduleWithFixedDelay(this::generate, 0, getDelta(), TimeUnit.MILLISECONDS);
-
-        updateExecutor = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.INSTANCE);
-        updateExecutor.scheduleWithFixedDelay(this::update, getUpdateInterval(), getUpdateInterval(), TimeUnit.MILLISECONDS);
-
-        setRunning(true);
-
-        D.info(SineSignalGenerator.this, "Started");
+        if (getPacingMode() == PacingMode.CATCH_UP) {
+            generateExecutor.scheduleWithFixedDelay(() -> generateCatchUp(queue, channelStripes),
+                    0, CATCH_UP_WAKE_INTERVAL, TimeUnit.MILLISECONDS);
+        } else {
+            generateExecutor.scheduleWithFixedDelay(() -> generate(queue, channelStripes),
+                    0, getDelta(), TimeUnit.MILLISECONDS);
+        }
     }
 
-    public synchronized void stop() {
-        if (!isRunning()) return;
-        D.info(SineSignalGenerator.this, "Stopping");
-
+    /**
+     * Interrupts the producer and waits until its current iteration finishes, so that the next start does not run
+     * alongside it
+     */
+    @Override
+    protected void stopProducer() {
         generateExecutor.shutdownNow();
-        updateExecutor.shutdownNow();
-        setDataReady(false);
-        setRunning(false);
+        try {
+            if (!generateExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                D.warn(SineSignalGenerator.this, "Producer did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        D.info(SineSignalGenerator.this, "Stopped");
+    /**
+     * Spreads waveforms over series in proportion to their weights, series of the same waveform are adjacent
+     *
+     * @param numOfSeries number of series
+     * @return waveform of each series
+     */
+    private Waveform[] assignWaveforms(int numOfSeries) {
+        final Waveform[] waveforms = new Waveform[numOfSeries];
+        Arrays.fill(waveforms, Waveform.SINE);
+        double total = 0;
+        for (double weight : getWaveformMix().values()) {
+            total += weight;
+        }
+        if (total <= 0) return waveforms;
+
+        int i = 0;
+        double cumulative = 0;
+        for (Map.Entry<Waveform, Double> e : getWaveformMix().entrySet()) {
+            cumulative += e.getValue();
+            final int end = (int) Math.round(cumulative / total * numOfSeries);
+            for (; i < end; i++) {
+                waveforms[i] = e.getKey();
+            }
+        }
+        return waveforms;
     }
 
-    public synchronized void reset() {
-        boolean wasRunning = isRunning();
-        stop();
-        if (wasRunning) start();
+    /**
+     * Producer in {@link PacingMode#FIXED_DELAY}, runs on generateExecutor only and never waits for the consumer
+     */
+    private void generate(SpscFrameQueue queue, ChannelStripe[] channelStripes) {
+        generateBlock(queue, channelStripes, 1);
     }
 
-    private synchronized void generate() {
-        double period = getPeriod();
-        double delta = getDelta();
-        double numOfSeries = getNumberOfSeries();
-        for (int i = 0; i < numOfSeries; i++) {
-            double t = TWO_PI * dataIdx * delta / period;
-            double offset = i * TWO_PI / (numOfSeries + 1); // +1 to have it not totally symmetric
-            double y = 3.0 * Math.sin(t + offset);
-            buffer.get(i).add(y);
-            //D.info(SignalGenerator.this, "Generated #" + dataIdx + " (#" + bufferIdx + ") point value: " + y + " for series #" + i);
+    /**
+     * Producer in {@link PacingMode#CATCH_UP}, runs on generateExecutor only and never waits for the consumer.
+     * Generates all samples which became due since previous wake-up. If producer fell behind by more than
+     * all slots can hold, the excess is skipped (and counted) so that it does not spiral.
+     * With burst interval set, due samples are left to accumulate until the interval elapses.
+     * Stops early when interrupted, that is when the producer is being stopped.
+     */
+    private void generateCatchUp(SpscFrameQueue queue, ChannelStripe[] channelStripes) {
+        final long now = System.nanoTime();
+        if (now - lastBurstNanos < TimeUnit.MILLISECONDS.toNanos(getBurstInterval())) return;
+        lastBurstNanos = now;
+
+        final long dueIdx = (long) ((now - startNanos) * getNominalRate() / 1e9);
+        final long maxCatchUp = (long) queue.getNumberOfSlots() * queue.getFrameCapacity();
+        long due = dueIdx - dataIdx;
+        if (due > maxCatchUp) {
+            skippedSamples += due - maxCatchUp;
+            dataIdx = dueIdx - maxCatchUp;
+            due = maxCatchUp;
+        }
+        while (due > 0 && !Thread.currentThread().isInterrupted()) {
+            int count = (int) Math.min(due, queue.pending().remaining());
+            generateBlock(queue, channelStripes, count);
+            due -= count;
         }
-        dataIdx++;
-        bufferIdx++;
     }
 
-    private synchronized void update() {
-        // Might happen that there's nothing to add (updateInterval < delta)
-        int numberOfPoints = buffer.get(0).size();
-        if (numberOfPoints == 0) return;
-
-        for (int i = 0; i < getNumberOfSeries(); i++) {
-            final List<Double> bufferSeries = buffer.get(i);
-            final List<Double> dataSeries = data.get(i);
-            dataSeries.clear();
-            dataSeries.addAll(bufferSeries);
-            bufferSeries.clear();
+    /**
+     * Generates count consecutive samples of every series into the pending frame and publishes it when
+     * update interval elapsed or it's full. Count must not exceed pending frame's remaining capacity.
+     * Stripes are generated in parallel and the frame is committed once all of them finished.
+     *
+     * @param queue          queue of the current run
+     * @param channelStripes stripes of the current run
+     * @param count          number of samples per series
+     */
+    private void generateBlock(SpscFrameQueue queue, ChannelStripe[] channelStripes, int count) {
+        final SampleFrame pending = queue.pending();
+        blockFrame = pending;
+        blockSlot = pending.writeSlot();
+        blockCount = count;
+        blockFirstIdx = dataIdx;
+        blockW = TWO_PI * getSampleInterval() * 1000.0 / getPeriod();
+        blockFast = isFastSynthesis();
+
+        final ChannelStripe[] ranges = channelStripes;
+        if (ranges.length == 1) {
+            ranges[0].generate();
+        } else {
+            final Executor executor = getStripeExecutor() != null ? getStripeExecutor() : ForkJoinPool.commonPool();
+            producerThread = Thread.currentThread();
+            unfinishedStripes.set(ranges.length);
+            for (int s = 1; s < ranges.length; s++) {
+                try {
+                    executor.execute(ranges[s]);
+                } catch (RejectedExecutionException e) {
+                    // Eg. shut down executor, stripe still has to count down or the producer would wait forever
+                    if (!stripeRejected) {
+                        D.warn(SineSignalGenerator.this, "Stripe executor rejected stripe, generating it on producer thread");
+                        stripeRejected = true;
+                    }
+                    ranges[s].run();
+                }
+            }
+            ranges[0].run();
+            while (unfinishedStripes.get() > 0) {
+                LockSupport.park(this);
+            }
         }
 
-        //D.info(SineSignalGenerator.this, "Update triggered, ready: " + getNumberOfSeries() + " series, each: " + data[0].length + " points");
-        bufferIdx = 0;
+        pending.commit(count);
+        dataIdx = blockFirstIdx + count;
 
-        // Don't want to create event, just "ping" listeners
-        setDataReady(true);
-        setDataReady(false);
+        publishIfDue(queue);
     }
 
+    /**
+     * Fixed range of series [from, to) of the pending frame. Stripes write disjoint channel arrays
+     * and each has its own synthesizer and random, so they don't share any mutable state.
+     */
+    private final class ChannelStripe implements Runnable {
+
+        private final int from, to;
+        /**
+         * Phase offsets and waveforms of the stripe's series only
+         */
+        private final double[] phaseOffsets;
+        private final Waveform[] waveforms;
+        private final SineSynthesizer synthesizer;
+        private final SplittableRandom random;
+
+        private ChannelStripe(double[] phaseOffsets, Waveform[] waveforms, int from, int to) {
+            this.from = from;
+            this.to = to;
+            this.phaseOffsets = Arrays.copyOfRange(phaseOffsets, from, to);
+            this.waveforms = Arrays.copyOfRange(waveforms, from, to);
+            this.synthesizer = new SineSynthesizer(AMPLITUDE);
+            this.random = new SplittableRandom(123L + from);
+        }
+
+        @Override
+        public void run() {
+            try {
+                generate();
+            } finally {
+                if (unfinishedStripes.decrementAndGet() == 0) {
+                    LockSupport.unpark(producerThread);
+                }
+            }
+        }
 
+        private void generate() {
+            final SampleFrame pending = blockFrame;
+            final int capacity = pending.getCapacity();
+            final int slot = blockSlot;
+            final int count = blockCount;
+            final int firstChunk = Math.min(count, capacity - slot);
+            final long firstIdx = blockFirstIdx;
+            if (blockFast) {
+                synthesizer.prepare(blockW, phaseOffsets, firstIdx);
+            }
+            for (int i = from; i < to; i++) {
+                final double[] y = pending.channel(i);
+                // Frame is a ring, block may wrap
+                fill(i - from, y, slot, firstChunk, firstIdx);
+                fill(i - from, y, 0, count - firstChunk, firstIdx + firstChunk);
+                //D.info(SignalGenerator.this, "Generated #" + firstIdx + " (#" + pending.size() + ") block of: " + count + " points for series #" + i);
+            }
+            if (blockFast) {
+                synthesizer.advance(count);
+            }
+        }
+
+        /**
+         * @param c     series index within the stripe
+         * @param y     series' channel array
+         * @param from  first slot to write
+         * @param count number of samples
+         * @param idx   index of the first sample
+         */
+        private void fill(int c, double[] y, int from, int count, long idx) {
+            final double w = blockW;
+            final double offset = phaseOffsets[c];
+            switch (waveforms[c]) {
+                case SINE:
+                case SQUARE:
+                    if (blockFast) {
+                        synthesizer.fill(c, y, from, count);
+                    } else {
+                        for (int k = 0; k < count; k++) {
+                            y[from + k] = AMPLITUDE * Math.sin(w * (idx + k) + offset);
+                        }
+                    }
+                    if (waveforms[c] == Waveform.SQUARE) {
+                        for (int k = from; k < from + count; k++) {
+                            y[k] = y[k] >= 0 ? AMPLITUDE : -AMPLITUDE;
+                        }
+                    }
+                    break;
+                case SAWTOOTH:
+                    for (int k = 0; k < count; k++) {
+                        final double t = (w * (idx + k) + offset) / TWO_PI;
+                        y[from + k] = AMPLITUDE * (2.0 * (t - Math.floor(t)) - 1.0);
+                    }
+                    break;
+                case NOISE:
+                    for (int k = 0; k < count; k++) {
+                        y[from + k] = AMPLITUDE * (2.0 * random.nextDouble() - 1.0);
+                    }
+                    break;
+            }
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package util;
+
+/**
+ * Generates blocks of sine samples for many channels sharing the same angular step (w) but different phase offsets,
+ * without calling {@link Math#sin(double)} per sample.
+ * <p>
+ * Each channel keeps its current phase as a unit complex number (cos, sin), advancing it is a multiplication by the
+ * precomputed rotation (cos w, sin w). To keep loops free of loop-carried dependencies (so that JIT can unroll and
+ * vectorize them) a block is produced by {@link #LANES} independent lanes, lane j holding phase of sample k + j,
+ * all of them rotated by LANES * w per step. Accumulated rounding errors are removed by renormalizing the phases
+ * after each block and by exactly re-seeding them (via sin/cos) every {@link #RESEED_INTERVAL} samples.
+ */
+public class SineSynthesizer {
+
+    private static final int LANES = 8;
+    /**
+     * Number of samples after which phases are re-seeded from the exact sin/cos values
+     */
+    private static final long RESEED_INTERVAL = 1L << 16;
+
+    private final double amplitude;
+    /**
+     * Angular step between consecutive samples, in radians
+     */
+    private double w;
+    private double[] phaseOffsets;
+    /**
+     * Index of the sample to be generated next
+     */
+    private long nextIndex;
+    private long lastReseedIndex;
+    /**
+     * Current phase of each channel
+     */
+    private double[] cos, sin;
+    /**
+     * Rotation by j * w, j in [0, LANES]
+     */
+    private final double[] laneRotCos, laneRotSin;
+    // Lanes state, reused by every fill
+    private final double[] laneCos, laneSin;
+
+    /**
+     * @param amplitude amplitude of generated sines
+     */
+    public SineSynthesizer(double amplitude) {
+        this.amplitude = amplitude;
+        this.phaseOffsets = new double[0];
+        this.cos = new double[0];
+        this.sin = new double[0];
+        this.laneRotCos = new double[LANES + 1];
+        this.laneRotSin = new double[LANES + 1];
+        this.laneCos = new double[LANES];
+        this.laneSin = new double[LANES];
+        this.w = Double.NaN;
+    }
+
+    public long getNextIndex() {
+        return nextIndex;
+    }
+
+    /**
+     * Prepares synthesis of sample firstIndex of every channel, y[c][k] = amplitude * sin(w * k + phaseOffsets[c]).
+     * Phases are re-seeded only if parameters changed or firstIndex does not follow previously generated samples.
+     *
+     * @param w            angular step between consecutive samples, in radians
+     * @param phaseOffsets phase offset of each channel, in radians, must not be modified afterwards
+     * @param firstIndex   index of the next sample to generate
+     */
+    public void prepare(double w, double[] phaseOffsets, long firstIndex) {
+        if (w != this.w || phaseOffsets != this.phaseOffsets || firstIndex != nextIndex
+                || firstIndex - lastReseedIndex >= RESEED_INTERVAL) {
+            reseed(w, phaseOffsets, firstIndex);
+        }
+    }
+
+    /**
+     * Writes next count samples of the channel into out[from, from + count) and advances channel's phase.
+     * All channels have to be filled with the same count before {@link #advance(int)} is called.
+     *
+     * @param channel channel index
+     * @param out     target array
+     * @param from    first index of the target array to write
+     * @param count   number of samples
+     */
+    public void fill(int channel, double[] out, int from, int count) {
+        if (count <= 0) return;
+
+        final double[] lc = laneCos, ls = laneSin;
+        final double c0 = cos[channel], s0 = sin[channel];
+        for (int j = 0; j < LANES; j++) {
+            lc[j] = c0 * laneRotCos[j] - s0 * laneRotSin[j];
+            ls[j] = s0 * laneRotCos[j] + c0 * laneRotSin[j];
+        }
+
+        final double stepCos = laneRotCos[LANES], stepSin = laneRotSin[LANES];
+        final double a = amplitude;
+        final int blocks = count / LANES;
+        int k = from;
+        for (int b = 0; b < blocks; b++, k += LANES) {
+            for (int j = 0; j < LANES; j++) {
+                out[k + j] = a * ls[j];
+            }
+            for (int j = 0; j < LANES; j++) {
+                final double c = lc[j], s = ls[j];
+                lc[j] = c * stepCos - s * stepSin;
+                ls[j] = s * stepCos + c * stepSin;
+            }
+        }
+        final int tail = count - blocks * LANES;
+        for (int j = 0; j < tail; j++) {
+            out[k + j] = a * ls[j];
+        }
+
+        // Lane #tail holds phase of the sample following the last written one
+        final double c = lc[tail], s = ls[tail];
+        final double norm = 1.0 / Math.sqrt(c * c + s * s);
+        cos[channel] = c * norm;
+        sin[channel] = s * norm;
+    }
+
+    /**
+     * Marks count samples of every channel as generated
+     *
+     * @param count number of samples passed to {@link #fill(int, double[], int, int)} for each channel
+     */
+    public void advance(int count) {
+        nextIndex += count;
+    }
+
+    private void reseed(double w, double[] phaseOffsets, long firstIndex) {
+        if (w != this.w) {
+            for (int j = 0; j <= LANES; j++) {
+                laneRotCos[j] = Math.cos(j * w);
+                laneRotSin[j] = Math.sin(j * w);
+            }
+        }
+        if (cos.length != phaseOffsets.length) {
+            cos = new double[phaseOffsets.length];
+            sin = new double[phaseOffsets.length];
+        }
+        // Reduce first to keep precision for large indices
+        final double phase = (w * firstIndex) % (2.0 * Math.PI);
+        for (int c = 0; c < phaseOffsets.length; c++) {
+            cos[c] = Math.cos(phase + phaseOffsets[c]);
+            sin[c] = Math.sin(phase + phaseOffsets[c]);
+        }
+        this.w = w;
+        this.phaseOffsets = phaseOffsets;
+        this.nextIndex = firstIndex;
+        this.lastReseedIndex = firstIndex;
+    }
+}
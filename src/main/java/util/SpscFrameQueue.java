@@ -0,0 +1,154 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single producer / single consumer hand-off of {@link SampleFrame}s over a pre-allocated slot array.
+ * <p>
+ * Producer always owns exactly one slot ({@link #pending()}) which it fills and then {@link #publish()}es.
+ * Consumer {@link #peek()}s published slots in order and {@link #release()}s them back once done.
+ * Both sides only ever write their own sequence counter, so neither of them waits nor locks. When consumer
+ * falls behind and all slots are taken, published frame is dropped (its slot is reused) and counted as overrun.
+ * <p>
+ * Consumer may also {@link #exchange(SampleFrame)} a published frame for a spare one to keep it without copying.
+ */
+public class SpscFrameQueue {
+
+    private final SampleFrame[] slots;
+    /**
+     * Number of frames published so far, written by producer only
+     */
+    private final AtomicLong published;
+    /**
+     * Number of frames released so far, written by consumer only
+     */
+    private final AtomicLong released;
+    /**
+     * Number of frames dropped because consumer was not keeping up, written by producer only
+     */
+    private final AtomicLong overruns;
+
+    /**
+     * @param numberOfSlots    number of pre-allocated frames, producer owns one of them at any time
+     * @param numberOfChannels number of channels of each frame
+     * @param frameCapacity    capacity of each frame
+     */
+    public SpscFrameQueue(int numberOfSlots, int numberOfChannels, int frameCapacity) {
+        if (numberOfSlots < 2) {
+            throw new IllegalArgumentException("At least 2 slots are required");
+        }
+        slots = new SampleFrame[numberOfSlots];
+        for (int i = 0; i < numberOfSlots; i++) {
+            slots[i] = new SampleFrame(numberOfChannels, frameCapacity);
+        }
+        published = new AtomicLong();
+        released = new AtomicLong();
+        overruns = new AtomicLong();
+    }
+
+    // region Producer
+
+    /**
+     * @return frame currently being filled by the producer
+     */
+    public SampleFrame pending() {
+        return slots[index(published.get())];
+    }
+
+    /**
+     * Makes pending frame visible to the consumer and hands next free slot to the producer.
+     * When there's no free slot pending frame is dropped and the producer continues with an emptied one.
+     *
+     * @return true if frame was published, false if it was dropped
+     */
+    public boolean publish() {
+        final long p = published.get();
+        if (isFull()) {
+            overruns.lazySet(overruns.get() + 1);
+            slots[index(p)].clear();
+            return false;
+        }
+        slots[index(p + 1)].clear();
+        published.lazySet(p + 1);
+        return true;
+    }
+
+    /**
+     * @return true if consumer holds all but the pending slot, next {@link #publish()} would drop the frame
+     */
+    public boolean isFull() {
+        return published.get() - released.get() >= slots.length - 1;
+    }
+
+    // endregion
+
+    // region Consumer
+
+    /**
+     * @return oldest published and not yet released frame or null if there's none
+     */
+    public SampleFrame peek() {
+        final long r = released.get();
+        return r < published.get() ? slots[index(r)] : null;
+    }
+
+    /**
+     * Hands frame returned by last {@link #peek()} back to the producer, frame must not be used afterwards
+     */
+    public void release() {
+        final long r = released.get();
+        if (r < published.get()) {
+            released.lazySet(r + 1);
+        }
+    }
+
+    /**
+     * Takes frame returned by last {@link #peek()} out of the queue, leaving replacement in its slot.
+     * Slot still has to be {@link #release()}d, returned frame is then owned by the caller.
+     *
+     * @param replacement empty frame with the same number of channels and capacity
+     * @return peeked frame
+     */
+    public SampleFrame exchange(SampleFrame replacement) {
+        final long r = released.get();
+        if (r >= published.get()) {
+            throw new IllegalStateException("No published frame to exchange");
+        }
+        if (replacement.getNumberOfChannels() != slots[0].getNumberOfChannels() || replacement.getCapacity() != getFrameCapacity()) {
+            throw new IllegalArgumentException("Replacement frame differs in size");
+        }
+        final int i = index(r);
+        final SampleFrame frame = slots[i];
+        slots[i] = replacement;
+        return frame;
+    }
+
+    /**
+     * @return number of frames published but not yet released
+     */
+    public int size() {
+        return (int) (published.get() - released.get());
+    }
+
+    // endregion
+
+    public int getNumberOfSlots() {
+        return slots.length;
+    }
+
+    public int getFrameCapacity() {
+        return slots[0].getCapacity();
+    }
+
+    public long getPublished() {
+        return published.get();
+    }
+
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length);
+    }
+}
@@ -0,0 +1,20 @@
+package util;
+
+public enum Waveform {
+    /**
+     * Sine wave, phase of each series is offset
+     */
+    SINE,
+    /**
+     * Square wave following sign of the series' sine
+     */
+    SQUARE,
+    /**
+     * Rising sawtooth with the same period and phase offset as the series' sine
+     */
+    SAWTOOTH,
+    /**
+     * Uniform white noise within amplitude
+     */
+    NOISE
+}